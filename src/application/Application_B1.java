@@ -0,0 +1,215 @@
+package application;
+
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+import datamodel.Article;
+import datamodel.Customer;
+import datamodel.Order;
+import datamodel.TAX;
+import system.Calculator;
+import system.DatamodelFactory;
+import system.IoC;
+import system.Printer;
+import system.TablePrinter;
+
+
+/**
+ * Runnable timing driver that reproduces the performance measurements of the
+ * {@link system} components with generated data. Each measurement is run
+ * {@link #WARMUP} times to warm up the JIT and then {@link #RUNS} times, the
+ * minimum and average times are printed:
+ * <ul>
+ * <li>report: {@link Printer#printOrders(TablePrinter, java.util.Collection)}
+ * of all orders into a discarding writer, compared with sorting the orders by
+ * a comparator that calculates the values of both orders (the approach before
+ * decorate-sort-undecorate).</li>
+ * <li>large order: {@link Printer#printOrder(TablePrinter, Order)} of one
+ * order with many items (B2B orders with thousands of lines).</li>
+ * <li>batch VAT: {@link Calculator#calculateIncludedVAT(long[], byte[], long[])}
+ * over columnar arrays compared with one
+ * {@link Calculator#calculateIncludedVAT(long, TAX)} call per value.</li>
+ * </ul>
+ * Arguments: number of orders (default: 200000), number of items of the
+ * large order (default: 10000) and number of VAT values (default: 2000000),
+ * e.g. {@code java -Xmx2g application.Application_B1 1000000 10000 2000000}.
+ * 
+ * @version <code style=color:green>{@value application.package_info#Version}</code>
+ * @author <code style=color:blue>{@value application.package_info#Author}</code>
+ */
+
+public class Application_B1 {
+
+	/**
+	 * Number of warm-up and measured runs of each measurement.
+	 */
+	private static final int WARMUP = 3;
+	private static final int RUNS = 5;
+
+	/**
+	 * References to IoC-managed components.
+	 */
+	private final DatamodelFactory datamodelFactory;
+	private final Calculator calculator;
+	private final Printer printer;
+
+	/**
+	 * Private constructor to initialize local attributes.
+	 */
+	private Application_B1() {
+		System.out.println(package_info.RootName + ": " + this.getClass().getSimpleName());
+		IoC ioc = IoC.getInstance();
+		this.datamodelFactory = ioc.getDatamodelFactory();
+		this.calculator = ioc.getCalculator();
+		this.printer = ioc.getPrinter();
+	}
+
+	/**
+	 * Public main() function.
+	 * 
+	 * @param args number of orders, number of items of large order, number of
+	 * VAT values.
+	 */
+	public static void main(String[] args) {
+		int orders = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+		int items = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+		int values = args.length > 2 ? Integer.parseInt(args[2]) : 2_000_000;
+		var appInstance = new Application_B1();
+		appInstance.report(orders);
+		appInstance.largeOrder(items);
+		appInstance.batchVAT(values);
+	}
+
+
+	/**
+	 * Measure order report and comparator sort of generated orders.
+	 * 
+	 * @param count number of generated orders.
+	 */
+	private void report(int count) {
+		final List<Order> orders = buildOrders(count);
+		System.out.println(String.format("report of %d orders:", orders.size()));
+		time("printOrders", () -> {
+			TablePrinter table = printer.createTablePrinter(Writer.nullWriter(), 1 << 16, builder -> builder
+				.column("|",  11).column("|",  28).column("R",   7).column(" ",   1)
+				.column("R",  10).column("|R", 10).column(" |R",12));
+			printer.printOrders(table, orders);
+			return orders.size();
+		});
+		time("sort by comparator", () -> {
+			List<Order> sorted = new ArrayList<Order>(orders);
+			sorted.sort((a, b) -> Long.compare(calculator.calculateValueAndTax(b)[0],
+				calculator.calculateValueAndTax(a)[0]));
+			return sorted.size();
+		});
+	}
+
+	/**
+	 * Measure printing of one order with many items.
+	 * 
+	 * @param items number of items of the order.
+	 */
+	private void largeOrder(int items) {
+		final Customer customer = datamodelFactory.createCustomer("Grosskunde, B2B").setId(900_000);
+		final Order order = datamodelFactory.createOrder(customer).setId("L" + items);
+		for(int i = 0; i < items; i++) {
+			Article article = datamodelFactory.createArticle("Position " + i, 100 + i % 997)
+				.setTax(i % 3 == 0 ? TAX.GER_VAT_REDUCED : TAX.GER_VAT);
+			order.addItem(article, 1 + i % 7);
+		}
+		System.out.println(String.format("order with %d items:", items));
+		time("printOrder", () -> {
+			StringBuilder sb = new StringBuilder();
+			TablePrinter table = printer.createTablePrinter(sb, 1 << 16, builder -> builder
+				.column("|",  11).column("|",  28).column("R",   7).column(" ",   1)
+				.column("R",  10).column("|R", 10).column(" |R",12));
+			printer.printOrder(table, order);
+			return sb.length();
+		});
+	}
+
+	/**
+	 * Measure batch and per-value VAT calculation of gross values.
+	 * 
+	 * @param count number of gross values.
+	 */
+	private void batchVAT(int count) {
+		final TAX[] taxes = TAX.values();
+		final long[] grossValues = new long[count];
+		final byte[] taxCodes = new byte[count];
+		for(int i = 0; i < count; i++) {
+			grossValues[i] = 1 + (i * 7919L) % 250_000;
+			taxCodes[i] = (byte)(i % taxes.length);
+		}
+		final long[] vat = new long[count];
+		System.out.println(String.format("VAT of %d gross values:", count));
+		time("calculateIncludedVAT(batch)", () -> {
+			calculator.calculateIncludedVAT(grossValues, taxCodes, vat);
+			long sum = 0;
+			for(long v : vat) {
+				sum += v;
+			}
+			return sum;
+		});
+		time("calculateIncludedVAT(per value)", () -> {
+			long sum = 0;
+			for(int i = 0; i < count; i++) {
+				sum += (vat[i] = calculator.calculateIncludedVAT(grossValues[i], taxes[taxCodes[i]]));
+			}
+			return sum;
+		});
+	}
+
+	/**
+	 * Build orders with 1 to 5 items of 20 articles for 1000 customers.
+	 * 
+	 * @param count number of orders.
+	 * @return built orders.
+	 */
+	private List<Order> buildOrders(int count) {
+		final Customer[] customers = new Customer[1000];
+		for(int i = 0; i < customers.length; i++) {
+			customers[i] = datamodelFactory.createCustomer("Kunde Nr" + i).setId(100_000 + i);
+		}
+		final Article[] articles = new Article[20];
+		for(int i = 0; i < articles.length; i++) {
+			articles[i] = datamodelFactory.createArticle("Artikel " + i, 99 + 250 * i).setId("SKU-" + i)
+				.setTax(i % 4 == 0 ? TAX.GER_VAT_REDUCED : TAX.GER_VAT);
+		}
+		final List<Order> orders = new ArrayList<Order>(count);
+		for(int i = 0; i < count; i++) {
+			Order order = datamodelFactory.createOrder(customers[i % customers.length]).setId("O" + i);
+			for(int k = 0, n = 1 + i % 5; k < n; k++) {
+				order.addItem(articles[(i * 7 + k * 3) % articles.length], 1 + (i + k) % 4);
+			}
+			orders.add(order);
+		}
+		return orders;
+	}
+
+	/**
+	 * Run measurement and print minimum and average time.
+	 * 
+	 * @param name name of measurement.
+	 * @param run measured code, returns a value that is printed to keep the JIT
+	 * from eliminating the code.
+	 */
+	private static void time(String name, LongSupplier run) {
+		long result = 0;
+		for(int i = 0; i < WARMUP; i++) {
+			result += run.getAsLong();
+		}
+		long min = Long.MAX_VALUE, sum = 0;
+		for(int i = 0; i < RUNS; i++) {
+			long t = System.nanoTime();
+			result += run.getAsLong();
+			t = System.nanoTime() - t;
+			min = Math.min(min, t);
+			sum += t;
+		}
+		System.out.println(String.format(" - %-32s min %8.2f ms, avg %8.2f ms  (%d)",
+			name, min / 1e6, sum / 1e6 / RUNS, result));
+	}
+}
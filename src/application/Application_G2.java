@@ -105,7 +105,7 @@ public class Application_G2 {
 				.row("Bestell-ID", "Bestellungen", "MwSt", "", "Preis", "MwSt", "Gesamt")
 				.line();
 			//
-			printer.printOrders(orderTable, datamodelFactory.getOrders());
+			printer.printOrders(orderTable, datamodelFactory.snapshot().getOrders());
 			//
 			System.out.println(sb);
 		}
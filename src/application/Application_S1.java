@@ -0,0 +1,246 @@
+package application;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import datamodel.Article;
+import datamodel.Customer;
+import datamodel.Order;
+import datamodel.OrderItem;
+import system.DatamodelFactory;
+import system.IoC;
+
+
+/**
+ * Runnable stress check of multi-threaded intake into the DatamodelFactory:
+ * writer threads create customers, orders and items while a reader thread
+ * iterates snapshots and looks up objects. Intake is measured in rounds with
+ * 1, 2, 4, ... writer threads to show scaling across cores. Afterwards, counts,
+ * id indexes and secondary indexes are verified against the objects created in
+ * all rounds.
+ * <p>
+ * The thread-safe factory is selected unless property {@code datamodel.factory}
+ * is set. Arguments: maximum number of writer threads (default: 8) and number
+ * of orders per thread (default: 50000), e.g.
+ * {@code java application.Application_S1 16 100000}. Exits with status 1 if a
+ * check fails.
+ * </p>
+ * 
+ * @version <code style=color:green>{@value application.package_info#Version}</code>
+ * @author <code style=color:blue>{@value application.package_info#Author}</code>
+ */
+
+public class Application_S1 {
+
+	/**
+	 * Number of shared articles referred to by order items.
+	 */
+	private static final int ARTICLES = 100;
+
+	/**
+	 * Reference to IoC-managed DatamodelFactory under test.
+	 */
+	private final DatamodelFactory datamodelFactory;
+
+	private final int threads;
+	private final int ordersPerThread;
+
+	/**
+	 * Failed checks.
+	 */
+	private final List<String> failures = Collections.synchronizedList(new ArrayList<String>());
+
+	/**
+	 * Private constructor to initialize local attributes.
+	 */
+	private Application_S1(int threads, int ordersPerThread) {
+		System.out.println(package_info.RootName + ": " + this.getClass().getSimpleName());
+		if (System.getProperty("datamodel.factory") == null) {
+			System.setProperty("datamodel.factory", "concurrent");	// before IoC creates the factory
+		}
+		this.datamodelFactory = IoC.getInstance().getDatamodelFactory();
+		this.threads = threads;
+		this.ordersPerThread = ordersPerThread;
+	}
+
+	/**
+	 * Public main() function.
+	 * 
+	 * @param args maximum number of writer threads and number of orders per
+	 *             thread.
+	 */
+	public static void main(String[] args) {
+		int threads = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+		int ordersPerThread = args.length > 1 ? Integer.parseInt(args[1]) : 50_000;
+		var appInstance = new Application_S1(threads, ordersPerThread);
+		if ( ! appInstance.run()) {
+			System.exit(1);
+		}
+	}
+
+
+	/**
+	 * Private method that runs with application instance.
+	 * 
+	 * @return true if all checks passed.
+	 */
+	private boolean run() {
+		System.out.println(String.format("%s, 1 .. %d writer threads x %d orders, %d cores.",
+			datamodelFactory.getClass().getSimpleName(), threads, ordersPerThread,
+			Runtime.getRuntime().availableProcessors()));
+		//
+		final Article[] articles = new Article[ARTICLES];
+		for(int i = 0; i < ARTICLES; i++) {
+			articles[i] = datamodelFactory.createArticle("Artikel " + i, 100 + i).setId("SKU-" + i);
+		}
+		long orders = 0;
+		for(int n = 1; ; n = Math.min(n << 1, threads)) {
+			intake(n, orders, articles);
+			orders += (long)n * ordersPerThread;
+			if(n >= threads)
+				break;
+		}
+		verify(articles, orders);
+		//
+		failures.stream().limit(20).forEach(f -> System.out.println(" - " + f));
+		System.out.println(failures.isEmpty()? "OK." : failures.size() + " checks FAILED.");
+		return failures.isEmpty();
+	}
+
+	/**
+	 * Run one round of intake with n writer threads and a reader thread, ids of
+	 * created customers and orders start at base.
+	 */
+	private void intake(int n, long base, Article[] articles) {
+		final CountDownLatch start = new CountDownLatch(1);
+		final AtomicBoolean writing = new AtomicBoolean(true);
+		final List<Thread> writers = new ArrayList<Thread>();
+		for(int t = 0; t < n; t++) {
+			final long first = base + (long)t * ordersPerThread;
+			writers.add(start(() -> write(first, articles, start)));
+		}
+		final AtomicLong reads = new AtomicLong();
+		final Thread reader = start(() -> read(writing, reads));
+		//
+		long time = System.nanoTime();
+		start.countDown();
+		writers.forEach(Application_S1::join);
+		time = System.nanoTime() - time;
+		writing.set(false);
+		join(reader);
+		//
+		long orders = (long)n * ordersPerThread;
+		System.out.println(String.format("intake, %2d threads: %d orders in %d ms, %.0f orders/s, %d concurrent reads.",
+			n, orders, time / 1_000_000, orders * 1e9 / time, reads.get()));
+	}
+
+	/**
+	 * Writer: create customers and orders with items, assign ids after creation
+	 * and delete items of some orders.
+	 */
+	private void write(long first, Article[] articles, CountDownLatch start) {
+		await(start);
+		for(int i = 0; i < ordersPerThread; i++) {
+			long id = first + i;
+			Customer customer = datamodelFactory.createCustomer("Kunde " + id).setId(id);
+			Order order = datamodelFactory.createOrder(customer);
+			for(int k = 0, n = 1 + (int)(id % 3); k < n; k++) {
+				order.addItem(articles[(int)((id * 31 + k * 7) % ARTICLES)], 1 + k);
+			}
+			order.setId("O-" + id);
+			if(id % 10 == 0) {
+				order.deleteItem(0);
+			}
+		}
+	}
+
+	/**
+	 * Reader: iterate snapshots and look up published objects while writers run.
+	 */
+	private void read(AtomicBoolean writing, AtomicLong reads) {
+		while(writing.get()) {
+			List<Order> orders = datamodelFactory.snapshot().getOrders();
+			int n = orders.size();
+			for(int i = Math.max(0, n - 1000); i < n; i++) {
+				Order order = orders.get(i);
+				if(order == null) {
+					failures.add("null in snapshot at " + i + ".");
+					return;
+				}
+				Long cid = order.getCustomer().getId();
+				if(datamodelFactory.findCustomerById(cid).isEmpty()) {
+					failures.add("customer " + cid + " of published order not found.");
+				}
+				reads.incrementAndGet();
+			}
+		}
+	}
+
+	/**
+	 * Verify counts, id indexes and secondary indexes.
+	 */
+	private void verify(Article[] articles, long orders) {
+		check(datamodelFactory.ordersCount() == orders, "ordersCount " + datamodelFactory.ordersCount());
+		check(datamodelFactory.customersCount() == orders, "customersCount " + datamodelFactory.customersCount());
+		check(datamodelFactory.articlesCount() == ARTICLES, "articlesCount " + datamodelFactory.articlesCount());
+		final Map<Article, Set<Order>> expected = new IdentityHashMap<Article, Set<Order>>();
+		for(Order order : datamodelFactory.getOrders()) {
+			check(datamodelFactory.findOrderById(order.getId()).orElse(null) == order, "order " + order.getId());
+			Customer customer = order.getCustomer();
+			check(datamodelFactory.findCustomerById(customer.getId()).orElse(null) == customer,
+				"customer " + customer.getId());
+			check(datamodelFactory.findOrdersByCustomerId(customer.getId()).equals(List.of(order)),
+				"orders of customer " + customer.getId());
+			for(OrderItem item : order.getItems()) {
+				expected.computeIfAbsent(item.getArticle(), a -> Collections.newSetFromMap(new IdentityHashMap<>()))
+					.add(order);
+			}
+		}
+		for(Article article : articles) {
+			List<Order> found = datamodelFactory.findOrdersByArticleId(article.getId());
+			Set<Order> set = expected.getOrDefault(article, Set.of());
+			check(found.size() == set.size() && set.containsAll(found), "orders of article " + article.getId());
+		}
+	}
+
+	private void check(boolean condition, String failure) {
+		if( ! condition) {
+			failures.add(failure);
+		}
+	}
+
+	private Thread start(Runnable runnable) {
+		Thread thread = new Thread(() -> {
+			try {
+				runnable.run();
+			} catch(RuntimeException e) {
+				failures.add(Thread.currentThread().getName() + ": " + e);
+			}
+		});
+		thread.start();
+		return thread;
+	}
+
+	private static void join(Thread thread) {
+		try {
+			thread.join();
+		} catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -43,6 +43,43 @@ public class Article {
      */
     private TAX tax = TAX.GER_VAT;
 
+    /**
+     * Listener interface to observe changes of an article, for example to
+     * maintain indexes over articles.
+     */
+    public interface Listener {
+        /**
+         * Called after the id of an article has been assigned.
+         * @param article article whose id was assigned.
+         */
+        void idAssigned(Article article);
+
+        /**
+         * Called after the description, price, currency or tax of an article have changed.
+         * @param article changed article.
+         */
+        default void changed(Article article) {
+        }
+    }
+
+    /**
+     * Listener notified about changes, may be null.
+     */
+    private Listener listener = null;
+
+    /**
+     * Revision of price, currency and tax of this article, incremented with each change after
+     * the new value has been set. Used to validate values derived from prices and taxes.
+     */
+    volatile long revision = 0;
+
+    /**
+     * Number of price, currency or tax changes of all articles, incremented after the revision of
+     * the changed article. Derived values can skip checking the revisions of their articles
+     * while it is unchanged.
+     */
+    static final java.util.concurrent.atomic.AtomicLong revisions = new java.util.concurrent.atomic.AtomicLong();
+
     /**
      * Default constructor.
      */
@@ -92,12 +129,25 @@ public class Article {
     	}
     	if ( this.id == null ) {
             this.id = id;
+            if(listener != null) {
+            	listener.idAssigned(this);
+            }
         } else {
            
         }
         return this;
     }
 
+    /**
+     * Listener setter, replaces a previously set listener.
+     * @param listener listener notified about changes, null removes listener.
+     * @return chainable self-reference.
+     */
+    public Article setListener(Listener listener) {
+        this.listener = listener;
+        return this;
+    }
+
     /**
      * Description getter.
      * @return descriptive text for article
@@ -118,6 +168,9 @@ public class Article {
     		
     	}
         this.description = description;
+        if(listener != null) {
+        	listener.changed(this);
+        }
         return this;
     }
 
@@ -136,8 +189,9 @@ public class Article {
      * @return chainable self-reference.
      */
     public Article setUnitPrice(long unitPrice) {
-    	if(unitPrice >= 0) {
+    	if(unitPrice >= 0 && unitPrice != this.unitPrice) {
     		this.unitPrice = unitPrice;
+    		revised();
     	}
         return this;
     }
@@ -158,10 +212,13 @@ public class Article {
      * @return chainable self-reference.
      */
     public Article setCurrency(Currency currency) {
-    	this.currency = currency;
     	if (currency == null) {
     		throw new IllegalArgumentException("currency null");
     	}
+    	if(currency != this.currency) {
+    		this.currency = currency;
+    		revised();
+    	}
         return this;
     }
 
@@ -183,8 +240,23 @@ public class Article {
     	if(tax == null) {
     		throw new IllegalArgumentException("tax null");
     	}
-    	this.tax = tax;
+    	if(tax != this.tax) {
+    		this.tax = tax;
+    		revised();
+    	}
         return this;
     }
 
+    /**
+     * Increment revision of article and number of revisions of all articles and
+     * notify listener about the change.
+     */
+    private void revised() {
+    	revision++;	// single writer per article, readers only compare
+    	revisions.incrementAndGet();
+    	if(listener != null) {
+    		listener.changed(this);
+    	}
+    }
+
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package datamodel;
 
 import java.util.*;
+import java.util.regex.Pattern;
 
 /**
  * Class for entity type <i>Customer</i>.
@@ -18,6 +19,11 @@ public class Customer {
      */
     private long id = -1;
 
+    /**
+     * Characters removed from contacts, compiled once instead of with each {@link #addContact(String)}.
+     */
+    private static final Pattern contactStrip = Pattern.compile("[\",;']");
+
     /**
      * Customer's surname attribute, never null.
      */
@@ -33,6 +39,68 @@ public class Customer {
      */
     private final List<String> contacts = new ArrayList<String>();
 
+    /**
+     * Listener interface to observe changes of a customer, for example to
+     * maintain indexes over customers.
+     */
+    public interface Listener {
+        /**
+         * Called after the id of a customer has been assigned.
+         * @param customer customer whose id was assigned.
+         */
+        void idAssigned(Customer customer);
+
+        /**
+         * Called after the name or contacts of a customer have changed.
+         * @param customer changed customer.
+         */
+        default void changed(Customer customer) {
+        }
+    }
+
+    /**
+     * Listener notified about changes, may be null.
+     */
+    private Listener listener = null;
+
+    /**
+     * Callback interface to render a name according to a name style.
+     */
+    @FunctionalInterface
+    public interface NameRenderer {
+        /**
+         * Render name according to style.
+         * @param firstName first name, never null.
+         * @param lastName last name, never null.
+         * @param style name formatting style.
+         * @return rendered name.
+         */
+        String render(String firstName, String lastName, int style);
+    }
+
+    /**
+     * Number of name styles with cached renderings (styles 0 to 22).
+     */
+    private static final int NAME_STYLES = 23;
+
+    /**
+     * Names rendered by style with the renderer that rendered them, cleared when
+     * the name changes, null until first use.
+     */
+    private FormattedNames formattedNames = null;
+
+    /**
+     * Names rendered by style with one renderer.
+     */
+    private static final class FormattedNames {
+        private final NameRenderer renderer;
+        private final String[] names = new String[NAME_STYLES];
+
+        private FormattedNames(NameRenderer renderer) {
+            this.renderer = renderer;
+        }
+    }
+
     /**
      * Default constructor.
      */
@@ -78,12 +146,25 @@ public class Customer {
     	}
     	if ( this.id == -1 ) {
             this.id = id;
+            if(listener != null) {
+            	listener.idAssigned(this);
+            }
         } else {
            
         }
         return this;
     }
 
+    /**
+     * Listener setter, replaces a previously set listener.
+     * @param listener listener notified about changes, null removes listener.
+     * @return chainable self-reference.
+     */
+    public Customer setListener(Listener listener) {
+        this.listener = listener;
+        return this;
+    }
+
     /**
      * LastName getter.
      * @return value of lastName attribute, never null, mapped to "".
@@ -116,7 +197,36 @@ public class Customer {
     public Customer setName(String first, String last) {
         this.firstName = first;
         this.lastName = last;
-        return this;
+        this.formattedNames = null;
+        return changed();
+    }
+
+    /**
+     * Return name rendered according to a name style. Renderings of styles 0 to 22
+     * are cached for the renderer that first renders the name after a name change,
+     * other renderers render the name without caching.
+     * @param style name formatting style.
+     * @param renderer renderer used when no rendering of style is cached.
+     * @return rendered name.
+     */
+    public String getFormattedName(int style, NameRenderer renderer) {
+        if(style < 0 || style >= NAME_STYLES) {
+            return renderer.render(getFirstName(), getLastName(), style);
+        }
+        FormattedNames cache = formattedNames;
+        if(cache == null) {
+            cache = new FormattedNames(renderer);
+            formattedNames = cache;
+        }
+        if(cache.renderer != renderer) {
+            return renderer.render(getFirstName(), getLastName(), style);
+        }
+        String name = cache.names[style];
+        if(name == null) {
+            name = renderer.render(getFirstName(), getLastName(), style);
+            cache.names[style] = name;
+        }
+        return name;
     }
 
     /**
@@ -162,7 +272,7 @@ public class Customer {
     		throw new IllegalArgumentException("");
     	}
 
-    	contact = contact.replaceAll("[\",;']", "");
+    	contact = contactStrip.matcher(contact).replaceAll("");
     	contact = contact.trim();
 
     	if(contact.length() < 6) {
@@ -173,7 +283,7 @@ public class Customer {
     		return this;
     	}
         contacts.add(contact);
-        return this;
+        return changed();
     }
 
     /**
@@ -185,6 +295,7 @@ public class Customer {
     		return;
     	}
     	contacts.remove(i);
+    	changed();
     }
 
     /**
@@ -192,6 +303,18 @@ public class Customer {
      */
     public void deleteAllContacts() {
         contacts.removeAll(contacts);
+        changed();
+    }
+
+    /**
+     * Notify listener about changed name or contacts.
+     * @return chainable self-reference.
+     */
+    private Customer changed() {
+        if(listener != null) {
+            listener.changed(this);
+        }
+        return this;
     }
 
     /**
@@ -1,18 +1,56 @@
 package datamodel;
 import java.util.*;
+import java.util.function.ToLongFunction;
 
 /**
  * Class of entity type <i>Order</i>.
  * <p>
  * Order represents a contractual relationship with a Customer for purchased (ordered) items.
  * </p>
+ * <p>
+ * Changes of items are synchronized on the order. Threads that iterate {@link #getItems()}
+ * while other threads may change items must hold the order's monitor, e.g.
+ * {@code synchronized(order) { ... }}, or iterate a copy from {@link #getItemsSnapshot()}.
+ * </p>
  * 
  * @version <code style=color:green>{@value application.package_info#Version}</code>
  * @author <code style=color:blue>{@value application.package_info#Author}</code>
  */
 public class Order {
 
-    
+    /**
+     * Listener interface to observe changes of ordered items and the assignment
+     * of the id, for example to maintain indexes over orders.
+     */
+    public interface Listener {
+        /**
+         * Called after an item has been added to an order.
+         * @param order order to which item was added.
+         * @param item added item.
+         */
+        void itemAdded(Order order, OrderItem item);
+
+        /**
+         * Called after an item has been removed from an order.
+         * @param order order from which item was removed.
+         * @param item removed item.
+         */
+        void itemRemoved(Order order, OrderItem item);
+
+        /**
+         * Called after the id of an order has been assigned.
+         * @param order order whose id was assigned.
+         */
+        default void idAssigned(Order order) {
+        }
+
+        /**
+         * Called after the creation date or the units of an item of an order have changed.
+         * @param order changed order.
+         */
+        default void changed(Order order) {
+        }
+    }
 
     /**
      * Unique id, null or "" are invalid values, id can be set only once.
@@ -34,11 +72,63 @@ public class Order {
      */
     private final List<OrderItem> items;
 
+    /**
+     * Listener notified about added and removed items, may be null.
+     */
+    private Listener listener = null;
+
+    /**
+     * Immutable compounded value and VAT tax of all items by currency of the articles,
+     * calculated with a VAT function.
+     * Totals are valid as long as the sum of the revisions of the articles of all items is
+     * unchanged. Checking them is skipped as long as no article has changed since the
+     * totals were calculated or last checked.
+     */
+    private static final class Totals {
+        final long[] byCurrency;        // {value, vat} at 2 * Currency.ordinal(), never modified
+        final ToLongFunction<OrderItem> vatFunction;
+        final long revisions;           // Article.revisions when calculated or last checked
+        final long articleRevisions;    // sum of revisions of the articles of all items
+
+        Totals(long[] byCurrency, ToLongFunction<OrderItem> vatFunction, long revisions, long articleRevisions) {
+            this.byCurrency = byCurrency;
+            this.vatFunction = vatFunction;
+            this.revisions = revisions;
+            this.articleRevisions = articleRevisions;
+        }
+
+        /**
+         * Totals with value and VAT of an item added (sign 1) or removed (sign -1).
+         */
+        Totals with(OrderItem item, int sign, long articleRevision) {
+            long[] byCurrency = this.byCurrency.clone();
+            add(byCurrency, item, vatFunction, sign);
+            return new Totals(byCurrency, vatFunction, revisions, articleRevisions + sign * articleRevision);
+        }
+
+        static void add(long[] byCurrency, OrderItem item, ToLongFunction<OrderItem> vatFunction, int sign) {
+            Article article = item.getArticle();
+            int c = 2 * article.getCurrency().ordinal();
+            byCurrency[c] += sign * article.getUnitPrice() * item.getUnitsOrdered();
+            byCurrency[c + 1] += sign * vatFunction.applyAsLong(item);
+        }
+    }
+
+    /**
+     * Currencies in which articles are quoted.
+     */
+    private static final int CURRENCIES = Currency.values().length;
+
+    /**
+     * Cached totals, replaced as a whole when items change, null if invalid.
+     */
+    private volatile Totals totals = null;
+
     /**
      * Default constructor
      */
     public Order() {
-    	this.creationDate  = Calendar.getInstance().getTime();
+    	this.creationDate  = new Date(); // current time without Calendar setup
 		this.customer = new Customer();
 		this.items = null;
     }
@@ -49,7 +139,7 @@ public class Order {
      * @throws IllegalArgumentException when customer argument is null or has invalid id.
      */
     public Order(Customer customer) {
-    	this.creationDate  = Calendar.getInstance().getTime();
+    	this.creationDate  = new Date(); // current time without Calendar setup
     	this.items = new ArrayList<OrderItem>();
     	this.customer = customer;
 		if(customer == null || customer.getId() == null) {
@@ -83,6 +173,9 @@ public class Order {
     	}
     	if ( this.id == null ) {
             this.id = id;
+            if(listener != null) {
+            	listener.idAssigned(this);
+            }
         } else {
            
         }
@@ -117,8 +210,11 @@ public class Order {
      * @return chainable self-reference.
      */
     @SuppressWarnings("deprecation")
-	public Order setCreationDate(long datetime) {
+	public synchronized Order setCreationDate(long datetime) {
     	this.creationDate.setTime(datetime);
+    	if(listener != null) {
+    		listener.changed(this);
+    	}
         return this;
     }
 
@@ -138,6 +234,15 @@ public class Order {
         return this.items;
     }
 
+    /**
+     * Copy of ordered items taken under the order's monitor, which can be iterated
+     * while other threads change items.
+     * @return point-in-time copy of ordered items.
+     */
+    public synchronized OrderItem[] getItemsSnapshot() {
+        return items.toArray(new OrderItem[items.size()]);
+    }
+
     /**
      * Create new item and add to order.
      * @param article article ordered from catalog.
@@ -145,11 +250,23 @@ public class Order {
      * @throws IllegalArgumentException if article is null or units not a positive {@code units > 0} number.
      * @return chainable self-reference.
      */
-    public Order addItem(Article article, int units) {
+    public synchronized Order addItem(Article article, int units) {
     	if(article == null || units < 0) {
     		throw new IllegalArgumentException("");
     	}
-        items.add(new OrderItem(article, units));
+    	OrderItem item = new OrderItem(article, units);
+    	item.order = this;
+        items.add(item);
+        long revision = article.revision;
+        Totals t = totals;
+        if(t != null && t.revisions == Article.revisions.get()) {
+        	totals = t.with(item, 1, revision);
+        } else {
+        	totals = null;
+        }
+        if(listener != null) {
+        	listener.itemAdded(this, item);
+        }
         return this;
     }
 
@@ -157,17 +274,127 @@ public class Order {
      * Delete i-th item from order, {@code i >= 0 && i < items.size()}, otherwise method has no effect.
      * @param i index of item to delete, only a valid index deletes item.
      */
-    public void deleteItem(int i) {
-    	if(i >= 0 || i < items.size()) {
-        items.remove(i);
+    public synchronized void deleteItem(int i) {
+    	if(i >= 0 && i < items.size()) {
+    		OrderItem item = items.remove(i);
+    		Article article = item.getArticle();
+    		long revision = article.revision;
+    		Totals t = totals;
+    		if(t != null && t.revisions == Article.revisions.get()) {
+    			totals = t.with(item, -1, revision);
+    		} else {
+    			totals = null;
+    		}
+    		item.order = null;
+    		if(listener != null) {
+    			listener.itemRemoved(this, item);
+    		}
     	}
     }
 
     /**
      * Delete all ordered items.
      */
-    public void deleteAllItems() {
-        items.removeAll(items);
+    public synchronized void deleteAllItems() {
+    	while(items.size() > 0) {
+    		deleteItem(items.size() - 1);
+    	}
+    }
+
+    /**
+     * Compounded value and VAT tax over all items, values in different currencies are
+     * added without conversion (see {@link #getValueAndTaxByCurrency(ToLongFunction)}).
+     * @param vatFunction function that returns the VAT tax included in an item.
+     * @return tuple with compounded value and VAT tax of ordered items.
+     */
+    public long[] getValueAndTax(ToLongFunction<OrderItem> vatFunction) {
+    	long[] byCurrency = validTotals(vatFunction).byCurrency;
+    	long value = 0, vat = 0;
+    	for(int c = 0; c < byCurrency.length; c += 2) {
+    		value += byCurrency[c];
+    		vat += byCurrency[c + 1];
+    	}
+    	return new long[] { value, vat };
+    }
+
+    /**
+     * Compounded value and VAT tax over all items by currency of the articles. Totals
+     * are cached and only fully recalculated when the VAT function differs from the
+     * previous call, units of an item have been changed or the price, currency or tax
+     * of an article of an item has changed since. Changes of other articles only cost
+     * one pass over the revisions of the articles of the items. Cached totals are read
+     * without locking.
+     * @param vatFunction function that returns the VAT tax included in an item.
+     * @return compounded value and VAT tax of items quoted in a currency at index
+     * {@code 2 * currency.ordinal()} and {@code 2 * currency.ordinal() + 1}.
+     */
+    public long[] getValueAndTaxByCurrency(ToLongFunction<OrderItem> vatFunction) {
+    	return validTotals(vatFunction).byCurrency.clone();
+    }
+
+    /**
+     * Return cached totals if they are valid, otherwise check and recalculate them.
+     * @param vatFunction function that returns the VAT tax included in an item.
+     * @return valid totals.
+     */
+    private Totals validTotals(ToLongFunction<OrderItem> vatFunction) {
+    	Totals t = totals;
+    	if(t == null || t.vatFunction != vatFunction || t.revisions != Article.revisions.get()) {
+    		t = checkedTotals(vatFunction);
+    	}
+    	return t;
+    }
+
+    /**
+     * Check cached totals and recalculate them if they are invalid.
+     * @param vatFunction function that returns the VAT tax included in an item.
+     * @return valid totals.
+     */
+    private synchronized Totals checkedTotals(ToLongFunction<OrderItem> vatFunction) {
+    	long revisions = Article.revisions.get();	// read before revisions of articles
+    	Totals t = totals;
+    	if(t != null && t.vatFunction == vatFunction) {
+    		if(t.revisions == revisions) {
+    			return t;
+    		}
+    		long articleRevisions = 0;
+    		for(OrderItem item : items) {
+    			articleRevisions += item.getArticle().revision;
+    		}
+    		if(articleRevisions == t.articleRevisions) {	// only other articles have changed
+    			return totals = new Totals(t.byCurrency, vatFunction, revisions, articleRevisions);
+    		}
+    	}
+    	long[] byCurrency = new long[2 * CURRENCIES];
+    	long articleRevisions = 0;
+    	for(OrderItem item : items) {
+    		articleRevisions += item.getArticle().revision;	// read before price, currency and tax
+    		Totals.add(byCurrency, item, vatFunction, 1);
+    	}
+    	return totals = new Totals(byCurrency, vatFunction, revisions, articleRevisions);
+    }
+
+    /**
+     * Update units of an item of this order, invalidate cached totals and notify listener.
+     * @param item item of this order.
+     * @param units updated number of articles ordered.
+     */
+    synchronized void updateUnits(OrderItem item, int units) {
+    	item.units(units);
+    	totals = null;
+    	if(listener != null) {
+    		listener.changed(this);
+    	}
+    }
+
+    /**
+     * Listener setter, replaces a previously set listener.
+     * @param listener listener notified about added and removed items, null removes listener.
+     * @return chainable self-reference.
+     */
+    public synchronized Order setListener(Listener listener) {
+    	this.listener = listener;
+    	return this;
     }
 
 }
\ No newline at end of file
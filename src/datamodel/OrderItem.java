@@ -26,6 +26,11 @@ public class OrderItem {
      */
     private int unitsOrdered;
 
+    /**
+     * Order that contains this item, null for items not added to an order.
+     */
+    Order order = null;
+
     /**
      * Constructor of ordered line item with article and units arguments.
      * @param article ordered article, throws IllegalArgumentException if article is null
@@ -59,9 +64,22 @@ public class OrderItem {
      * @throws IllegalArgumentException if units not a positive {@code units >0} number.
      */
     public void setUnitsOrdered(int units) {
-    	if(units >= 0) {
-        this.unitsOrdered = units;
+    	if(units >= 0 && units != this.unitsOrdered) {
+    		Order order = this.order;
+    		if(order != null) {
+    			order.updateUnits(this, units);
+    		} else {
+    			this.unitsOrdered = units;
+    		}
     	}
     }
 
+    /**
+     * Set units without notifying the order, called by the order that contains this item.
+     * @param units updated number of articles ordered.
+     */
+    void units(int units) {
+    	this.unitsOrdered = units;
+    }
+
 }
\ No newline at end of file
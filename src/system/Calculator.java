@@ -1,5 +1,8 @@
 package system;
 
+import java.util.Collection;
+
+import datamodel.Currency;
 import datamodel.Order;
 import datamodel.TAX;
 
@@ -14,6 +17,84 @@ import datamodel.TAX;
 
 public interface Calculator {
 
+	/**
+	 * Compounded values and VAT tax aggregated over a collection of orders.
+	 * Values of items are in the currency of their articles, grand totals add
+	 * values regardless of their currencies.
+	 */
+	interface Totals {
+		/**
+		 * Return number of aggregated orders.
+		 * 
+		 * @return number of aggregated orders.
+		 */
+		int getOrdersCount();
+
+		/**
+		 * Return compounded value of all order items.
+		 * 
+		 * @return compounded value of all order items.
+		 */
+		long getValue();
+
+		/**
+		 * Return compounded VAT tax of all order items.
+		 * 
+		 * @return compounded VAT tax of all order items.
+		 */
+		long getVAT();
+
+		/**
+		 * Return compounded value of order items with a tax rate.
+		 * 
+		 * @param tax tax rate of order items.
+		 * @return compounded value of order items with tax rate.
+		 */
+		long getValue(TAX tax);
+
+		/**
+		 * Return compounded VAT tax of order items with a tax rate.
+		 * 
+		 * @param tax tax rate of order items.
+		 * @return compounded VAT tax of order items with tax rate.
+		 */
+		long getVAT(TAX tax);
+
+		/**
+		 * Return compounded value of order items quoted in a currency.
+		 * 
+		 * @param currency currency of order items.
+		 * @return compounded value of order items in currency.
+		 */
+		long getValue(Currency currency);
+
+		/**
+		 * Return compounded VAT tax of order items quoted in a currency.
+		 * 
+		 * @param currency currency of order items.
+		 * @return compounded VAT tax of order items in currency.
+		 */
+		long getVAT(Currency currency);
+
+		/**
+		 * Return compounded value of all order items converted into a currency with
+		 * the conversion rates at the time of aggregation.
+		 * 
+		 * @param currency currency to convert into.
+		 * @return compounded value of all order items in currency.
+		 */
+		long getConvertedValue(Currency currency);
+
+		/**
+		 * Return compounded VAT tax of all order items converted into a currency
+		 * with the conversion rates at the time of aggregation.
+		 * 
+		 * @param currency currency to convert into.
+		 * @return compounded VAT tax of all order items in currency.
+		 */
+		long getConvertedVAT(Currency currency);
+	}
+
 	/**
 	 * Get percent tax rate from enum value.
 	 * 
@@ -34,11 +115,57 @@ public interface Calculator {
 	long calculateIncludedVAT(long grossValue, TAX tax);
 
 	/**
-	 * Calculate compounded value and VAT tax over all order items.
+	 * Calculate included VAT tax for a batch of gross values, e.g. of order items
+	 * held in columnar arrays. Results are equal to
+	 * {@link #calculateIncludedVAT(long, TAX)} for each value.
+	 * 
+	 * @param grossValues values that included tax.
+	 * @param taxCodes    applicable tax rates as {@link TAX#ordinal()}, at least
+	 *                    as many as gross values.
+	 * @param vat         output array for tax included in gross values, a new
+	 *                    array is created when null.
+	 * @return array with tax included in gross values (same vat).
+	 * @throws IllegalArgumentException if grossValues or taxCodes are null or
+	 *                                  arrays are shorter than grossValues.
+	 */
+	long[] calculateIncludedVAT(long[] grossValues, byte[] taxCodes, long[] vat);
+
+	/**
+	 * Calculate compounded value and VAT tax over all order items, items quoted
+	 * in other currencies are converted into EUR.
 	 * 
 	 * @param order order to calculate compounded value and VAT tax.
-	 * @return tuple with compounded value and VAT tax of order items.
+	 * @return tuple with compounded value and VAT tax of order items in EUR.
 	 */
 	public long[] calculateValueAndTax(Order order);
 
+	/**
+	 * Calculate compounded values and VAT tax over all items of a collection of
+	 * orders with breakdowns by tax rate and currency. Large collections are
+	 * aggregated in parallel.
+	 * 
+	 * @param orders orders to aggregate, null elements are ignored.
+	 * @return aggregated totals.
+	 */
+	public Totals calculateTotals(Collection<Order> orders);
+
+	/**
+	 * Convert value from one currency into another with cached conversion rates
+	 * that are loaded from the {@link IoC#getProperties()} properties
+	 * {@code "currency.rate.<CURRENCY>"} (value of one unit in EUR, e.g.
+	 * {@code currency.rate.USD = 0.92}) and reloaded periodically.
+	 * 
+	 * @param value value in currency {@code from}.
+	 * @param from  currency of value.
+	 * @param to    currency to convert value into.
+	 * @return value in currency {@code to}, rounded half up.
+	 */
+	public long convert(long value, Currency from, Currency to);
+
+	/**
+	 * Reload cached conversion rates from properties, e.g. after properties have
+	 * been loaded.
+	 */
+	public void reloadCurrencyRates();
+
 }
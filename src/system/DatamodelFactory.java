@@ -1,5 +1,8 @@
 package system;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.*;
 
 import datamodel.Customer;
@@ -17,6 +20,34 @@ import datamodel.Order;
 
 public interface DatamodelFactory {
 
+	/**
+	 * Immutable point-in-time view of created objects. Objects created after the
+	 * snapshot was taken are not visible in the snapshot. Snapshots do not copy
+	 * object lists and do not block the creation of new objects.
+	 */
+	interface Snapshot {
+		/**
+		 * Getter method to return Customer objects created before the snapshot.
+		 * 
+		 * @return immutable list of Customer objects.
+		 */
+		List<Customer> getCustomers();
+
+		/**
+		 * Getter method to return Article objects created before the snapshot.
+		 * 
+		 * @return immutable list of Article objects.
+		 */
+		List<Article> getArticles();
+
+		/**
+		 * Getter method to return Order objects created before the snapshot.
+		 * 
+		 * @return immutable list of Order objects.
+		 */
+		List<Order> getOrders();
+	}
+
 	/**
 	 * Customer factory method using default constructor.
 	 * 
@@ -82,6 +113,14 @@ public interface DatamodelFactory {
 	 */
 	public List<Order> getOrders();
 
+	/**
+	 * Take immutable point-in-time snapshot of created objects, e.g. for
+	 * long-running reports.
+	 * 
+	 * @return snapshot of created objects.
+	 */
+	public Snapshot snapshot();
+
 	/**
 	 * Return number of created Customer objects.
 	 * 
@@ -120,10 +159,58 @@ public interface DatamodelFactory {
 	 */
 	public Optional<Order> findOrderById(String id);
 
+	/**
+	 * Find all created Order objects owned by a customer.
+	 * 
+	 * @param customerId customer id.
+	 * @return orders of customer in order of creation, empty list if none.
+	 */
+	public List<Order> findOrdersByCustomerId(long customerId);
+
+	/**
+	 * Find all created Order objects with items of an article.
+	 * 
+	 * @param articleId article id.
+	 * @return orders that contain article, empty list if none.
+	 */
+	public List<Order> findOrdersByArticleId(String articleId);
+
 	/**
 	 * Return number of created Order objects.
 	 * 
 	 * @return number of created Order objects.
 	 */
 	public int ordersCount();
+
+	/**
+	 * Save created objects in a compact binary format, e.g. to restore them after
+	 * a restart with {@link #load(InputStream)}.
+	 * 
+	 * @param out output stream, not closed.
+	 * @return number of saved objects (customers, articles and orders).
+	 * @throws IOException if writing to output stream fails.
+	 */
+	public int save(OutputStream out) throws IOException;
+
+	/**
+	 * Load objects saved with {@link #save(OutputStream)} and create them in this
+	 * factory.
+	 * 
+	 * @param in input stream, not closed.
+	 * @return number of loaded objects (customers, articles and orders).
+	 * @throws IOException if reading from input stream fails or input has an
+	 *                     invalid format.
+	 */
+	public int load(InputStream in) throws IOException;
+
+	/**
+	 * Write created and changed objects that are pending in the journal to disk,
+	 * no-op if objects are not journaled. Objects are otherwise written in batches.
+	 * 
+	 * @throws java.io.UncheckedIOException if writing to the journal fails or a
+	 *                                      checkpoint of the journal has failed
+	 *                                      since the last call, the checkpoint is
+	 *                                      retried.
+	 */
+	public void sync();
 }
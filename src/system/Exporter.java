@@ -0,0 +1,71 @@
+package system;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Path;
+
+import datamodel.Order;
+
+/**
+ * Interface of an exporter that streams the order report of
+ * {@link Printer#printOrders(TablePrinter, java.util.Collection)} in
+ * machine-readable form to CSV or JSON lines: orders with their items, VAT
+ * included in items, order totals and grand totals.
+ * <p>
+ * Orders are written in iteration order, one at a time, the document is never
+ * held in memory as a whole. Amounts are written in cent (the unit of
+ * {@link datamodel.Article#getUnitPrice()}), dates as formatted by
+ * {@link Formatter#fmtDate(long, int, String, int...)} with style 0 and names by
+ * {@link Formatter#fmtName(String, String, int...)} with style 0. Order totals
+ * are converted into EUR like {@link Calculator#calculateValueAndTax}, grand
+ * totals are the sums of the order totals. CSV example:
+ * </p>
+ *
+ * <pre>
+ * type,order,customer_id,customer,created,article,description,units,unit_price,price,vat,tax,currency
+ * item,3563561357,643270,"Bayer, Anne",2022-05-16 08:16:42,SKU-638035,Teller,2,649,1298,207,GER_VAT,EUR
+ * item,3563561357,643270,"Bayer, Anne",2022-05-16 08:16:42,SKU-458362,Tasse,2,299,598,95,GER_VAT,EUR
+ * order,3563561357,643270,"Bayer, Anne",2022-05-16 08:16:42,,,,,1896,302,,EUR
+ * total,,,,,,,,,1896,302,,EUR
+ * </pre>
+ * <p>
+ * JSON-lines example:
+ * </p>
+ *
+ * <pre>
+ * {"type":"order","id":"3563561357","customerId":643270,"customer":"Bayer, Anne","created":"2022-05-16 08:16:42","items":[{"article":"SKU-638035","description":"Teller","units":2,"unitPrice":649,"price":1298,"vat":207,"tax":"GER_VAT","currency":"EUR"}, ...],"price":1896,"vat":302,"currency":"EUR"}
+ * {"type":"total","orders":1,"price":1896,"vat":302,"currency":"EUR"}
+ * </pre>
+ *
+ * @version <code style=
+ *          color:green>{@value application.package_info#Version}</code>
+ * @author <code style=
+ *         color:blue>{@value application.package_info#Author}</code>
+ */
+
+public interface Exporter {
+
+	/**
+	 * Export orders to writer.
+	 *
+	 * @param out    destination of the export, flushed but not closed. Byte
+	 *               channels can be used with
+	 *               {@link java.nio.channels.Channels#newWriter}.
+	 * @param orders orders to export (null elements are ignored).
+	 * @param format format of the export.
+	 * @return number of written lines.
+	 * @throws IOException if writing fails.
+	 */
+	long exportOrders(Writer out, Iterable<Order> orders, Importer.Format format) throws IOException;
+
+	/**
+	 * Export orders to file in format selected by its name extension (see
+	 * {@link Importer.Format#of(Path)}). The file is created or replaced.
+	 *
+	 * @param path   path of export file.
+	 * @param orders orders to export (null elements are ignored).
+	 * @return number of written lines.
+	 * @throws IOException if the file cannot be written.
+	 */
+	long exportOrders(Path path, Iterable<Order> orders) throws IOException;
+}
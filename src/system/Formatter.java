@@ -1,5 +1,7 @@
 package system;
 
+import datamodel.Customer;
+
 /**
  * Interface to convert values into readable String formats.
  * 
@@ -31,6 +33,30 @@ public interface Formatter {
 	 */
 	public String fmtName(String firstName, String lastName, int... style);
 
+	/**
+	 * Format Customer name according to a style (0 is default, see
+	 * {@link #fmtName(String, String, int...)}) into a StringBuilder.
+	 * 
+	 * @param sb        StringBuilder to append formatted name to.
+	 * @param firstName first name, may be null or "".
+	 * @param lastName  last name, may be null or "".
+	 * @param style     name formatting style.
+	 * @return StringBuilder with appended name (same sb).
+	 */
+	public StringBuilder fmtName(StringBuilder sb, String firstName, String lastName, int style);
+
+	/**
+	 * Format name of Customer according to a style (0 is default, see
+	 * {@link #fmtName(String, String, int...)}).
+	 * 
+	 * @param customer customer whose name is formatted.
+	 * @param style    name formatting style.
+	 * @return formatted name according to style.
+	 */
+	default String fmtName(Customer customer, int... style) {
+		return fmtName(customer.getFirstName(), customer.getLastName(), style);
+	}
+
 	/**
 	 * Format date/time from long value (64 bit, counted ms since 01/01/1970). Date
 	 * and time styles can be combined, e.g. with dateStyle 4, fill: "at" and
@@ -67,6 +93,16 @@ public interface Formatter {
 	 */
 	public String fmtDate(long datetime, int dateStyle, String fill, int... timeStyle);
 
+	/**
+	 * Return hit and miss counts of the cache of formatted dates used by
+	 * {@link #fmtDate(long, int, String, int...)}.
+	 * 
+	 * @return tuple with {hits, misses}, {0, 0} without cache.
+	 */
+	default long[] dateCacheStats() {
+		return new long[] { 0L, 0L };
+	}
+
 	/**
 	 * Format long value to price according to a style (0 is default):
 	 * 
@@ -86,6 +122,18 @@ public interface Formatter {
 	 */
 	public String fmtPrice(long price, int... style);
 
+	/**
+	 * Format long value to price according to a style (0 is default, see
+	 * {@link #fmtPrice(long, int...)}) into a StringBuilder without intermediate
+	 * objects.
+	 * 
+	 * @param sb    StringBuilder to append formatted price to.
+	 * @param price long value as price.
+	 * @param style price formatting style.
+	 * @return StringBuilder with appended price (same sb).
+	 */
+	public StringBuilder fmtPrice(StringBuilder sb, long price, int style);
+
 	/**
 	 * Method to format a long value to a decimal String with a specified number of
 	 * digits.
@@ -97,4 +145,16 @@ public interface Formatter {
 	 */
 	public String fmtDecimal(long value, int decimalDigits, String... unit);
 
+	/**
+	 * Method to format a long value as decimal with a specified number of digits
+	 * into a StringBuilder without intermediate objects.
+	 * 
+	 * @param sb            StringBuilder to append formatted value to.
+	 * @param value         value to format in decimal format.
+	 * @param decimalDigits number of digits.
+	 * @param unit          appended unit, null or "" for no unit.
+	 * @return StringBuilder with appended value (same sb).
+	 */
+	public StringBuilder fmtDecimal(StringBuilder sb, long value, int decimalDigits, String unit);
+
 }
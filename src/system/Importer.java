@@ -0,0 +1,154 @@
+package system;
+
+import java.io.IOException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Interface of a bulk importer that streams Customer, Article and Order
+ * records from large CSV or JSON-lines files into the {@link DatamodelFactory}.
+ * <p>
+ * Each line holds one record, records may only refer to customers and articles
+ * imported by earlier lines or already created in the factory. Empty lines and
+ * CSV lines starting with {@code '#'} are skipped. CSV fields are separated by
+ * {@code ','} and may be quoted with {@code '"'} ({@code ""} inside quotes):
+ * </p>
+ *
+ * <pre>
+ * customer,892474,"Meyer, Eric",eric98@yahoo.com,(030) 3945-642298
+ * article,SKU-278530,"Buch ""Java""",4990,EUR,GER_VAT_REDUCED
+ * order,8592356245,892474,2022-08-14T10:30:00,SKU-278530,1,SKU-458362,4
+ * </pre>
+ * <p>
+ * Currency, tax and creation date (epoch milliseconds or ISO-8601 local
+ * date-time) are optional. The same records as JSON lines:
+ * </p>
+ *
+ * <pre>
+ * {"type":"customer","id":892474,"name":"Meyer, Eric","contacts":["eric98@yahoo.com"]}
+ * {"type":"article","id":"SKU-278530","description":"Buch \"Java\"","price":4990,"currency":"EUR","tax":"GER_VAT_REDUCED"}
+ * {"type":"order","id":"8592356245","customer":892474,"date":"2022-08-14T10:30:00","items":[{"article":"SKU-278530","units":1}]}
+ * </pre>
+ * <p>
+ * Records are validated with the rules of the datamodel classes (names,
+ * contacts, descriptions, prices, units) and must not repeat ids of existing
+ * objects. Invalid records are rejected and reported with their line number,
+ * they do not stop the import.
+ * </p>
+ *
+ * @version <code style=
+ *          color:green>{@value application.package_info#Version}</code>
+ * @author <code style=
+ *         color:blue>{@value application.package_info#Author}</code>
+ */
+
+public interface Importer {
+
+	/**
+	 * Formats of import and export files.
+	 */
+	enum Format {
+		CSV, JSON_LINES;
+
+		/**
+		 * Return format of file by its name extension, {@code ".jsonl"},
+		 * {@code ".ndjson"} and {@code ".json"} select JSON lines, any other
+		 * extension CSV.
+		 *
+		 * @param path path of file.
+		 * @return format of file.
+		 */
+		public static Format of(Path path) {
+			final String name = path.getFileName().toString().toLowerCase();
+			return name.endsWith(".jsonl") || name.endsWith(".ndjson") || name.endsWith(".json") ? JSON_LINES
+					: CSV;
+		}
+	}
+
+	/**
+	 * Outcome of an import.
+	 */
+	interface Result {
+		/**
+		 * Return number of read lines, including skipped and rejected lines.
+		 *
+		 * @return number of read lines.
+		 */
+		long getLines();
+
+		/**
+		 * Return number of imported Customer objects.
+		 *
+		 * @return number of imported Customer objects.
+		 */
+		long getCustomers();
+
+		/**
+		 * Return number of imported Article objects.
+		 *
+		 * @return number of imported Article objects.
+		 */
+		long getArticles();
+
+		/**
+		 * Return number of imported Order objects.
+		 *
+		 * @return number of imported Order objects.
+		 */
+		long getOrders();
+
+		/**
+		 * Return number of rejected lines.
+		 *
+		 * @return number of rejected lines.
+		 */
+		long getRejected();
+
+		/**
+		 * Return messages of the first rejected lines, e.g.
+		 * {@code "line 12: contact less than 6 characters: \"abc\"."}.
+		 *
+		 * @return messages of the first rejected lines.
+		 */
+		List<String> getErrors();
+
+		/**
+		 * Return duration of the import in milliseconds.
+		 *
+		 * @return duration of the import in milliseconds.
+		 */
+		long getMillis();
+	}
+
+	/**
+	 * Import records from file in format selected by its name extension.
+	 *
+	 * @param path path of import file.
+	 * @return outcome of the import.
+	 * @throws IOException if the file cannot be read.
+	 */
+	default Result importFile(Path path) throws IOException {
+		return importFile(path, Format.of(path));
+	}
+
+	/**
+	 * Import records from file.
+	 *
+	 * @param path   path of import file.
+	 * @param format format of import file.
+	 * @return outcome of the import.
+	 * @throws IOException if the file cannot be read.
+	 */
+	Result importFile(Path path, Format format) throws IOException;
+
+	/**
+	 * Import records from channel, e.g. {@code Channels.newChannel(in)}.
+	 *
+	 * @param channel channel with UTF-8 encoded records, not closed.
+	 * @param format  format of records.
+	 * @return outcome of the import.
+	 * @throws IOException if reading from channel fails.
+	 */
+	Result importFrom(ReadableByteChannel channel, Format format) throws IOException;
+}
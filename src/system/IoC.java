@@ -52,6 +52,8 @@ public interface IoC {
 	 * {@link DatamodelFactory} interface.
 	 * 
 	 * @return reference to singleton DatamodelFactory instance.
+	 * @throws IllegalStateException if the DatamodelFactory is misconfigured by
+	 *                               system properties.
 	 */
 	DatamodelFactory getDatamodelFactory();
 
@@ -62,6 +64,22 @@ public interface IoC {
 	 * @return reference to singleton OrderBuilder instance.
 	 */
 	OrderBuilder getOrderBuilder();
+
+	/**
+	 * Getter of system singleton component that implements the {@link Importer}
+	 * interface.
+	 * 
+	 * @return reference to singleton Importer instance.
+	 */
+	Importer getImporter();
+
+	/**
+	 * Getter of system singleton component that implements the {@link Exporter}
+	 * interface.
+	 * 
+	 * @return reference to singleton Exporter instance.
+	 */
+	Exporter getExporter();
 	
 	Properties getProperties();
 	
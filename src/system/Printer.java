@@ -8,7 +8,14 @@ import datamodel.Article;
 import datamodel.Order;
 
 /**
- * Interface to format and print objects and collections into a StringBuffer.
+ * Interface to format and print objects and collections into a StringBuffer or
+ * another {@link Appendable} such as a StringBuilder.
+ * <p>
+ * An untyped {@code null} first argument resolves to the StringBuffer variants,
+ * which create a new StringBuffer. {@code printOrder} and {@code printOrders}
+ * also have TablePrinter variants, there a {@code null} first argument must be
+ * cast to select one of them, e.g. {@code printOrders((StringBuffer) null, orders)}.
+ * </p>
  * 
  * @version <code style=
  *          color:green>{@value application.package_info#Version}</code>
@@ -28,6 +35,23 @@ public interface Printer {
 	 */
 	TablePrinter createTablePrinter(StringBuffer sb, Consumer<TablePrinter.Builder> builder);
 
+	/**
+	 * Factory method to create streaming TablePrinter instances that write rows to
+	 * an output destination instead of collecting the whole table in memory. Rows
+	 * are buffered up to {@code bufferSize} characters and then written to
+	 * {@code out}, {@link TablePrinter#flush()} writes remaining rows. Byte
+	 * channels can be used with {@link java.nio.channels.Channels#newWriter}.
+	 * 
+	 * @param out        output destination, e.g. a {@link java.io.Writer} or
+	 *                   {@link java.io.PrintStream}.
+	 * @param bufferSize number of buffered characters that triggers a write to
+	 *                   {@code out}.
+	 * @param builder    initialize table at creation with columns, widths and
+	 *                   alignment.
+	 * @return TablePrinter instance.
+	 */
+	TablePrinter createTablePrinter(Appendable out, int bufferSize, Consumer<TablePrinter.Builder> builder);
+
 	/**
 	 * Print attributes of one Customer object into StringBuffer as column-separated
 	 * line.
@@ -44,6 +68,23 @@ public interface Printer {
 	 */
 	public StringBuffer printCustomer(StringBuffer sb, Customer customer);
 
+	/**
+	 * Print attributes of one Customer object into an Appendable as
+	 * column-separated line.
+	 * Content is rendered without synchronization overhead, directly into a
+	 * StringBuilder or into a temporary StringBuilder that is appended to other
+	 * destinations once. An untyped {@code null} argument for {@code out}
+	 * selects the StringBuffer variant.
+	 * 
+	 * @param <A>      type of output destination, e.g. StringBuilder or Writer.
+	 * @param out      output destination, not null.
+	 * @param customer Customer object.
+	 * @return output destination that contains formatted result (same out).
+	 * @throws IllegalArgumentException if out is null.
+	 * @throws java.io.UncheckedIOException if appending to out fails.
+	 */
+	public <A extends Appendable> A printCustomer(A out, Customer customer);
+
 	/**
 	 * Print collection of Customer objects into StringBuffer as lines with Customer
 	 * attributes.
@@ -62,6 +103,23 @@ public interface Printer {
 	 */
 	public StringBuffer printCustomers(StringBuffer sb, Collection<Customer> customers);
 
+	/**
+	 * Print collection of Customer objects into an Appendable as lines with
+	 * Customer attributes.
+	 * Content is rendered without synchronization overhead, directly into a
+	 * StringBuilder or into a temporary StringBuilder that is appended to other
+	 * destinations once. An untyped {@code null} argument for {@code out}
+	 * selects the StringBuffer variant.
+	 * 
+	 * @param <A>       type of output destination, e.g. StringBuilder or Writer.
+	 * @param out       output destination, not null.
+	 * @param customers collection of Customers (null argument is ignored).
+	 * @return output destination that contains formatted result (same out).
+	 * @throws IllegalArgumentException if out is null.
+	 * @throws java.io.UncheckedIOException if appending to out fails.
+	 */
+	public <A extends Appendable> A printCustomers(A out, Collection<Customer> customers);
+
 	/**
 	 * Print attributes of one Article object into StringBuffer as column-separated
 	 * line.
@@ -78,6 +136,23 @@ public interface Printer {
 	 */
 	public StringBuffer printArticle(StringBuffer sb, Article article);
 
+	/**
+	 * Print attributes of one Article object into an Appendable as column-separated
+	 * line.
+	 * Content is rendered without synchronization overhead, directly into a
+	 * StringBuilder or into a temporary StringBuilder that is appended to other
+	 * destinations once. An untyped {@code null} argument for {@code out}
+	 * selects the StringBuffer variant.
+	 * 
+	 * @param <A>     type of output destination, e.g. StringBuilder or Writer.
+	 * @param out     output destination, not null.
+	 * @param article Article object
+	 * @return output destination that contains formatted result (same out).
+	 * @throws IllegalArgumentException if out is null.
+	 * @throws java.io.UncheckedIOException if appending to out fails.
+	 */
+	public <A extends Appendable> A printArticle(A out, Article article);
+
 	/**
 	 * Print collection of Article objects into StringBuffer as lines with Article
 	 * attributes.
@@ -96,6 +171,23 @@ public interface Printer {
 	 */
 	public StringBuffer printArticles(StringBuffer sb, Collection<Article> articles);
 
+	/**
+	 * Print collection of Article objects into an Appendable as lines with Article
+	 * attributes.
+	 * Content is rendered without synchronization overhead, directly into a
+	 * StringBuilder or into a temporary StringBuilder that is appended to other
+	 * destinations once. An untyped {@code null} argument for {@code out}
+	 * selects the StringBuffer variant.
+	 * 
+	 * @param <A>      type of output destination, e.g. StringBuilder or Writer.
+	 * @param out      output destination, not null.
+	 * @param articles collection of Articles (null argument is ignored).
+	 * @return output destination that contains formatted result (same out).
+	 * @throws IllegalArgumentException if out is null.
+	 * @throws java.io.UncheckedIOException if appending to out fails.
+	 */
+	public <A extends Appendable> A printArticles(A out, Collection<Article> articles);
+
 	/**
 	 * Print attributes of one Order object into StringBuffer as column-separated
 	 * line.
@@ -112,6 +204,23 @@ public interface Printer {
 	 */
 	public StringBuffer printOrder(StringBuffer sb, Order order);
 
+	/**
+	 * Print attributes of one Order object into an Appendable as column-separated
+	 * line.
+	 * Content is rendered without synchronization overhead, directly into a
+	 * StringBuilder or into a temporary StringBuilder that is appended to other
+	 * destinations once. An untyped {@code null} argument for {@code out}
+	 * selects the StringBuffer variant.
+	 * 
+	 * @param <A>   type of output destination, e.g. StringBuilder or Writer.
+	 * @param out   output destination, not null.
+	 * @param order Order object
+	 * @return output destination that contains formatted result (same out).
+	 * @throws IllegalArgumentException if out is null.
+	 * @throws java.io.UncheckedIOException if appending to out fails.
+	 */
+	public <A extends Appendable> A printOrder(A out, Order order);
+
 	/**
 	 * Print collection of Order objects into StringBuffer as lines with Order
 	 * attributes.
@@ -131,6 +240,23 @@ public interface Printer {
 	 */
 	public StringBuffer printOrders(StringBuffer sb, Collection<Order> orders);
 
+	/**
+	 * Print collection of Order objects into an Appendable as lines with Order
+	 * attributes.
+	 * Content is rendered without synchronization overhead, directly into a
+	 * StringBuilder or into a temporary StringBuilder that is appended to other
+	 * destinations once. An untyped {@code null} argument for {@code out}
+	 * selects the StringBuffer variant.
+	 * 
+	 * @param <A>    type of output destination, e.g. StringBuilder or Writer.
+	 * @param out    output destination, not null.
+	 * @param orders collection of Orders (null argument is ignored).
+	 * @return output destination that contains formatted result (same out).
+	 * @throws IllegalArgumentException if out is null.
+	 * @throws java.io.UncheckedIOException if appending to out fails.
+	 */
+	public <A extends Appendable> A printOrders(A out, Collection<Order> orders);
+
 	/**
 	 * Print order into TablePrinter with order item separated lines.
 	 * 
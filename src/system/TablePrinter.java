@@ -1,6 +1,8 @@
 package system;
 
 import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Interface of configurable TablePrinter.
@@ -66,6 +68,34 @@ public interface TablePrinter {
 		Builder column(String spec, int width);
 	}
 
+	/**
+	 * Cell buffer of one row with one reusable StringBuilder for each column.
+	 */
+	interface Cells {
+		/**
+		 * Return empty cell of column to append the column text to.
+		 * 
+		 * @param column column index {@code 0 <= column < columns}.
+		 * @return empty StringBuilder of column.
+		 */
+		StringBuilder cell(int column);
+	}
+
+	/**
+	 * Source of rows that writes the columns of each row into a cell buffer that
+	 * is reused for all rows.
+	 */
+	@FunctionalInterface
+	interface RowSource {
+		/**
+		 * Write columns of row into cells, columns not written remain empty.
+		 * 
+		 * @param row   row index {@code 0 <= row < count}.
+		 * @param cells empty cell buffer of row.
+		 */
+		void row(int row, Cells cells);
+	}
+
 	/**
 	 * Insert horizontal line into table.
 	 * 
@@ -95,9 +125,68 @@ public interface TablePrinter {
 	TablePrinter row(String... args);
 
 	/**
-	 * Output table to PrintStream.
+	 * Insert {@code count} content lines with columns written by a RowSource into
+	 * a reusable cell buffer.
+	 * 
+	 * @param count  number of rows.
+	 * @param source writes columns of each row.
+	 * @return chainable self-reference.
+	 */
+	default TablePrinter rows(int count, RowSource source) {
+		return rows(null, count, source);
+	}
+
+	/**
+	 * Insert {@code count} content lines with columns written by a RowSource into
+	 * a reusable cell buffer, rows are formatted by a spec (see
+	 * {@link #row(String...)} with leading "@" spec argument).
+	 * 
+	 * @param spec   row spec with leading "@", null for the default row spec.
+	 * @param count  number of rows.
+	 * @param source writes columns of each row.
+	 * @return chainable self-reference.
+	 */
+	default TablePrinter rows(String spec, int count, RowSource source) {
+		final List<StringBuilder> cells = new ArrayList<StringBuilder>();
+		final Cells buffer = column -> {
+			while (cells.size() <= column) {
+				cells.add(new StringBuilder());
+			}
+			return cells.get(column);
+		};
+		for (int r = 0; r < count; r++) {
+			cells.forEach(cell -> cell.setLength(0));
+			source.row(r, buffer);
+			final int offset = spec != null ? 1 : 0;
+			final String[] args = new String[cells.size() + offset];
+			if (spec != null) {
+				args[0] = spec.startsWith("@") ? spec : "@" + spec;
+			}
+			for (int i = 0; i < cells.size(); i++) {
+				args[i + offset] = cells.get(i).toString();
+			}
+			row(args);
+		}
+		return this;
+	}
+
+	/**
+	 * Output table to PrintStream. Streaming tables (see
+	 * {@link Printer#createTablePrinter(Appendable, int, java.util.function.Consumer)})
+	 * have already written their content to their output destination, they only
+	 * flush remaining rows unless the destination is a StringBuilder.
 	 * 
 	 * @param ps output destination.
 	 */
 	void print(PrintStream ps);
+
+	/**
+	 * Write buffered rows to the output destination. Tables that collect content
+	 * in a StringBuffer have no buffered rows.
+	 * 
+	 * @return chainable self-reference.
+	 */
+	default TablePrinter flush() {
+		return this;
+	}
 }
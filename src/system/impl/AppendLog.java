@@ -0,0 +1,189 @@
+package system.impl;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Append-only storage of elements in chunks of doubling size that supports any
+ * number of concurrent writers and lock-free readers.
+ * <p>
+ * Writers reserve positions with an atomic increment (no lock) and store their
+ * elements in parallel. Chunks are allocated by the first writer that needs
+ * them (compare-and-set) and are never moved or modified once an element has
+ * been published, so a reader that captures the published size obtains a
+ * consistent, immutable view of all elements appended before ({@link #view()})
+ * without copying. The published size only advances over stored elements and
+ * every writer advances it over all stored elements up to its own, so a writer
+ * only waits for writers of lower positions that have reserved but not yet
+ * stored their element, not for their publication. The first chunk is small,
+ * which keeps small logs small, e.g. logs of orders of one customer.
+ * </p>
+ *
+ * @param <T> element type.
+ *
+ * @version <code style=
+ *          color:green>{@value application.package_info#Version}</code>
+ * @author <code style=
+ *         color:blue>{@value application.package_info#Author}</code>
+ */
+
+final class AppendLog<T> {
+
+	/**
+	 * Chunk {@code c} holds {@code FIRST_CHUNK_SIZE << c} elements, position
+	 * {@code i} is in the chunk of the highest bit of {@code i + FIRST_CHUNK_SIZE}.
+	 */
+	private static final int FIRST_CHUNK_BITS = 2;
+	private static final int FIRST_CHUNK_SIZE = 1 << FIRST_CHUNK_BITS;
+	private static final int MAX_SIZE = Integer.MAX_VALUE - FIRST_CHUNK_SIZE;
+
+	/**
+	 * Spins of a writer waiting for the element of a lower position before it
+	 * yields the processor.
+	 */
+	private static final int SPINS = 64;
+
+	/**
+	 * Volatile access to elements of chunks by writers, readers access elements
+	 * below the published size with plain reads.
+	 */
+	private static final VarHandle ELEMENT = MethodHandles.arrayElementVarHandle(Object[].class);
+
+	/**
+	 * Directory of chunks with room for all positions, chunks are set once.
+	 */
+	private final AtomicReferenceArray<Object[]> chunks = new AtomicReferenceArray<Object[]>(
+			Integer.SIZE - 1 - FIRST_CHUNK_BITS);
+
+	/**
+	 * Number of reserved positions.
+	 */
+	private final AtomicInteger reserved = new AtomicInteger();
+
+	/**
+	 * Number of published elements, readers only access elements below.
+	 */
+	private final AtomicInteger size = new AtomicInteger();
+
+	/**
+	 * Append element and publish it to readers. The element is published when
+	 * the method returns.
+	 *
+	 * @param element element to append, not null.
+	 * @return position of appended element.
+	 * @throws IllegalArgumentException if element is null.
+	 * @throws IllegalStateException    if the log is full.
+	 */
+	int append(T element) {
+		if (element == null)
+			throw new IllegalArgumentException("element is null.");
+		final int n = reserved.getAndIncrement();
+		if (n < 0 || n >= MAX_SIZE)
+			throw new IllegalStateException("log is full.");
+		final int p = n + FIRST_CHUNK_SIZE;
+		final int c = chunk(p);
+		Object[] chunk = chunks.get(c);
+		if (chunk == null) {
+			final Object[] created = new Object[FIRST_CHUNK_SIZE << c];
+			chunk = chunks.compareAndSet(c, null, created) ? created : chunks.get(c);
+		}
+		ELEMENT.setVolatile(chunk, p - (FIRST_CHUNK_SIZE << c), element);
+		// advance published size over stored elements, including those of other
+		// writers, until the own element is published
+		int spins = 0;
+		for (int s = size.get(); s <= n; s = size.get()) {
+			if (stored(s)) {
+				size.compareAndSet(s, s + 1);
+			} else if (spins++ < SPINS) {
+				Thread.onSpinWait();
+			} else {
+				Thread.yield();
+			}
+		}
+		return n;
+	}
+
+	/**
+	 * Return element at position.
+	 *
+	 * @param i position {@code 0 <= i < size()}.
+	 * @return element at position.
+	 * @throws IndexOutOfBoundsException if position is not published.
+	 */
+	T get(int i) {
+		final int n = size.get();
+		if (i < 0 || i >= n)
+			throw new IndexOutOfBoundsException(i);
+		return element(chunks, i);
+	}
+
+	/**
+	 * Return number of published elements.
+	 *
+	 * @return number of published elements.
+	 */
+	int size() {
+		return size.get();
+	}
+
+	/**
+	 * Return immutable point-in-time view of all elements published so far.
+	 * Elements appended later are not visible in the view.
+	 *
+	 * @return immutable random-access list view.
+	 */
+	List<T> view() {
+		return new View<T>(chunks, size.get());
+	}
+
+	/**
+	 * Test whether the element of a reserved position has been stored.
+	 */
+	private boolean stored(int i) {
+		final int p = i + FIRST_CHUNK_SIZE;
+		final int c = chunk(p);
+		final Object[] chunk = chunks.get(c);
+		return chunk != null && ELEMENT.getVolatile(chunk, p - (FIRST_CHUNK_SIZE << c)) != null;
+	}
+
+	private static int chunk(int p) {
+		return Integer.SIZE - 1 - Integer.numberOfLeadingZeros(p) - FIRST_CHUNK_BITS;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> T element(AtomicReferenceArray<Object[]> chunks, int i) {
+		final int p = i + FIRST_CHUNK_SIZE;
+		final int c = chunk(p);
+		return (T) chunks.get(c)[p - (FIRST_CHUNK_SIZE << c)];
+	}
+
+	/**
+	 * Immutable list over a fixed number of published elements.
+	 */
+	private static final class View<T> extends AbstractList<T> implements RandomAccess {
+		private final AtomicReferenceArray<Object[]> dir;
+		private final int size;
+
+		View(AtomicReferenceArray<Object[]> dir, int size) {
+			this.dir = dir;
+			this.size = size;
+		}
+
+		@Override
+		public T get(int i) {
+			if (i < 0 || i >= size)
+				throw new IndexOutOfBoundsException(i);
+			return element(dir, i);
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+	}
+}
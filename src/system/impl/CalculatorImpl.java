@@ -1,9 +1,13 @@
 package system.impl;
 
-import java.util.Map;
-import java.util.Optional;
+import java.math.RoundingMode;
+import java.util.Collection;
+import java.util.Properties;
+import java.util.function.ToLongFunction;
 
+import datamodel.Currency;
 import datamodel.Order;
+import datamodel.OrderItem;
 import datamodel.TAX;
 import system.Calculator;
 
@@ -19,12 +23,53 @@ import system.Calculator;
 class CalculatorImpl implements Calculator {
 
 	/**
-	 * Applicable tax rate mapped from TAX enum.
+	 * Integer VAT engine with applicable tax rates.
 	 */
-	private final Map<TAX, Double> taxRateMapper = Map.of(TAX.TAXFREE, 0.0, // tax free rate
-			TAX.GER_VAT, 19.0, // German VAT tax (MwSt) 19.0%
-			TAX.GER_VAT_REDUCED, 7.0 // German reduced VAT tax (MwSt) 7.0%
-	);
+	private final VATEngine vatEngine;
+
+	/**
+	 * Cached conversion rates of currencies.
+	 */
+	private final CurrencyRates currencyRates;
+
+	/**
+	 * Currencies by ordinal.
+	 */
+	private static final Currency[] currencies = Currency.values();
+
+	/**
+	 * VAT tax included in an order item, used by orders to maintain cached totals.
+	 */
+	private final ToLongFunction<OrderItem> itemVAT = item -> calculateIncludedVAT(
+			item.getArticle().getUnitPrice() * item.getUnitsOrdered(), item.getArticle().getTax());
+
+	/**
+	 * Default constructor, net values are rounded half up.
+	 */
+	CalculatorImpl() {
+		this(RoundingMode.HALF_UP);
+	}
+
+	/**
+	 * Constructor with rounding mode of net values in VAT calculations.
+	 * 
+	 * @param rounding rounding of net values.
+	 */
+	CalculatorImpl(final RoundingMode rounding) {
+		this(rounding, null);
+	}
+
+	/**
+	 * Constructor with rounding mode of net values in VAT calculations and
+	 * properties from which currency conversion rates are loaded.
+	 * 
+	 * @param rounding   rounding of net values.
+	 * @param properties source of conversion rates, may be null.
+	 */
+	CalculatorImpl(final RoundingMode rounding, final Properties properties) {
+		this.vatEngine = new VATEngine(rounding);
+		this.currencyRates = new CurrencyRates(properties);
+	}
 
 	/**
 	 * Get percent tax rate from enum value.
@@ -34,7 +79,7 @@ class CalculatorImpl implements Calculator {
 	 */
 	@Override
 	public double getTaxRate(final TAX taxRate) {
-		return taxRate != null ? taxRateMapper.get(taxRate) : 0.0;
+		return vatEngine.rate(taxRate) / 100.0;
 	}
 
 	/**
@@ -48,28 +93,89 @@ class CalculatorImpl implements Calculator {
 	 */
 	@Override
 	public long calculateIncludedVAT(final long grossValue, final TAX tax) {
-		long vat = (long) Math.round(grossValue / (1 + (getTaxRate(tax) / 100)));
-		long real = grossValue - vat;
-		return real;
+		return vatEngine.includedVAT(grossValue, tax);
 	}
 
 	/**
-	 * Calculate compounded value and VAT tax over all order items.
+	 * Calculate included VAT tax for a batch of gross values, e.g. of order items
+	 * held in columnar arrays.
+	 * 
+	 * @param grossValues values that included tax.
+	 * @param taxCodes    applicable tax rates as {@link TAX#ordinal()}.
+	 * @param vat         output array for tax included in gross values, a new
+	 *                    array is created when null.
+	 * @return array with tax included in gross values (same vat).
+	 * @throws IllegalArgumentException if grossValues or taxCodes are null or
+	 *                                  arrays are shorter than grossValues.
+	 */
+	@Override
+	public long[] calculateIncludedVAT(final long[] grossValues, final byte[] taxCodes, final long[] vat) {
+		if (grossValues == null || taxCodes == null)
+			throw new IllegalArgumentException("grossValues or taxCodes null.");
+		final int n = grossValues.length;
+		final long[] result = vat != null ? vat : new long[n];
+		if (taxCodes.length < n || result.length < n)
+			throw new IllegalArgumentException("arrays shorter than grossValues.");
+		vatEngine.includedVAT(grossValues, taxCodes, result, n);
+		return result;
+	}
+
+	/**
+	 * Calculate compounded value and VAT tax over all order items in EUR. Items
+	 * quoted in other currencies are added per currency and each currency total
+	 * of the order is converted once. Grand totals of printed orders are sums of
+	 * these order totals.
 	 * 
 	 * @param order order to calculate compounded value and VAT tax.
-	 * @return tuple with compounded value and VAT tax of order items.
+	 * @return tuple with compounded value and VAT tax of order items in EUR.
 	 */
 	@Override
 	public long[] calculateValueAndTax(final Order order) {
-		long[] totals = { 0L, 0L };
-		Optional.ofNullable(order).ifPresent(o -> o.getItems().forEach(item -> {
-			int units = item.getUnitsOrdered();
-			long unitPrice = item.getArticle().getUnitPrice();
-			long itemPrice = unitPrice * units;
-			long vat = calculateIncludedVAT(itemPrice, item.getArticle().getTax());
-			totals[0] += itemPrice; // compound item price
-			totals[1] += vat; // compound item tax
-		}));
-		return totals; // return tuple with compounded {value, vat}
+		if (order == null)
+			return new long[] { 0L, 0L };
+		// totals are maintained by order and only recalculated when stale
+		final long[] byCurrency = order.getValueAndTaxByCurrency(itemVAT);
+		final CurrencyRates.Table rates = currencyRates.table();
+		final long[] valueAndTax = { 0L, 0L };
+		for (int c = 0; c < byCurrency.length; c++) {
+			final Currency currency = currencies[c / 2];
+			valueAndTax[c % 2] += currency == Currency.EUR || byCurrency[c] == 0 ? byCurrency[c]
+					: rates.convert(byCurrency[c], currency, Currency.EUR);
+		}
+		return valueAndTax;
+	}
+
+	/**
+	 * Calculate compounded values and VAT tax over all items of a collection of
+	 * orders with breakdowns by tax rate and currency. Large collections are
+	 * aggregated in parallel with one accumulator per thread.
+	 * 
+	 * @param orders orders to aggregate, null elements are ignored.
+	 * @return aggregated totals.
+	 */
+	@Override
+	public Totals calculateTotals(final Collection<Order> orders) {
+		return OrderTotals.aggregate(orders, vatEngine, currencyRates.table());
+	}
+
+	/**
+	 * Convert value from one currency into another with cached conversion rates.
+	 * 
+	 * @param value value in currency {@code from}.
+	 * @param from  currency of value.
+	 * @param to    currency to convert value into.
+	 * @return value in currency {@code to}, rounded half up.
+	 */
+	@Override
+	public long convert(final long value, final Currency from, final Currency to) {
+		return currencyRates.table().convert(value, from, to);
+	}
+
+	/**
+	 * Reload cached conversion rates from properties.
+	 */
+	@Override
+	public void reloadCurrencyRates() {
+		currencyRates.reload();
 	}
 }
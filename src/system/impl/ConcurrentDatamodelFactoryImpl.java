@@ -0,0 +1,389 @@
+package system.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import datamodel.Customer;
+import datamodel.Article;
+import datamodel.Order;
+import datamodel.OrderItem;
+import system.DatamodelFactory;
+
+/**
+ * Thread-safe factory that creates instances of objects of the
+ * {@link datamodel} package and can be used concurrently by multiple threads.
+ * <p>
+ * Created objects are stored in append-only logs ({@link AppendLog}) per entity
+ * type that writers append to without locks. Getters return immutable
+ * point-in-time views that can be iterated while other threads create objects.
+ * Id and secondary indexes are concurrent hash maps, ids are indexed when they
+ * are assigned.
+ * </p>
+ *
+ * @version <code style=
+ *          color:green>{@value application.package_info#Version}</code>
+ * @author <code style=
+ *         color:blue>{@value application.package_info#Author}</code>
+ */
+
+class ConcurrentDatamodelFactoryImpl implements DatamodelFactory {
+
+	/**
+	 * Internal append-only logs of Customer, Article and Order objects.
+	 */
+	private final AppendLog<Customer> customers = new AppendLog<Customer>();
+	private final AppendLog<Article> articles = new AppendLog<Article>();
+	private final AppendLog<Order> orders = new AppendLog<Order>();
+
+	/**
+	 * Primary-key indexes, objects are indexed when their (immutable) id is
+	 * assigned. The first object that is assigned an id wins.
+	 */
+	private final Map<Long, Customer> customerIndex = new ConcurrentHashMap<Long, Customer>();
+	private final Map<String, Article> articleIndex = new ConcurrentHashMap<String, Article>();
+	private final Map<String, Order> orderIndex = new ConcurrentHashMap<String, Order>();
+
+	/**
+	 * Secondary indexes: customer id mapped to orders, article mapped to the
+	 * concurrent set of orders with items of the article with the number of such
+	 * items in each order.
+	 */
+	private final Map<Long, AppendLog<Order>> ordersByCustomer = new ConcurrentHashMap<Long, AppendLog<Order>>();
+	private final Map<Article, Map<Order, Integer>> ordersByArticle = new ConcurrentHashMap<Article, Map<Order, Integer>>();
+
+	/**
+	 * Listeners attached to created customers and articles that index ids when
+	 * they are assigned and report changes to the journal.
+	 */
+	private final Customer.Listener customerListener = new Customer.Listener() {
+		@Override
+		public void idAssigned(Customer customer) {
+			customerIndex.putIfAbsent(customer.getId(), customer);
+			journaled(customer);
+		}
+
+		@Override
+		public void changed(Customer customer) {
+			journaled(customer);
+		}
+	};
+
+	private final Article.Listener articleListener = new Article.Listener() {
+		@Override
+		public void idAssigned(Article article) {
+			articleIndex.putIfAbsent(article.getId(), article);
+			journaled(article);
+		}
+
+		@Override
+		public void changed(Article article) {
+			journaled(article);
+		}
+	};
+
+	/**
+	 * Journal that records created and changed objects, null if objects are not
+	 * journaled.
+	 */
+	private volatile OrderJournal journal = null;
+
+	/**
+	 * Listener attached to created orders that indexes ids when they are
+	 * assigned, maintains the article index and reports changed orders to the
+	 * journal.
+	 */
+	private final Order.Listener itemListener = new Order.Listener() {
+		@Override
+		public void itemAdded(Order order, OrderItem item) {
+			ordersByArticle.computeIfAbsent(item.getArticle(), a -> new ConcurrentHashMap<Order, Integer>())
+				.merge(order, 1, Integer::sum);
+			OrderJournal j = journal;
+			if (j != null) {
+				j.recordItemAdded(order, item);
+			}
+		}
+
+		@Override
+		public void itemRemoved(Order order, OrderItem item) {
+			Map<Order, Integer> bucket = ordersByArticle.get(item.getArticle());
+			if (bucket != null) {
+				bucket.computeIfPresent(order, (o, n) -> n > 1 ? n - 1 : null);
+			}
+			journaled(order);
+		}
+
+		@Override
+		public void idAssigned(Order order) {
+			orderIndex.putIfAbsent(order.getId(), order);
+			journaled(order);
+		}
+
+		@Override
+		public void changed(Order order) {
+			journaled(order);
+		}
+	};
+
+	/**
+	 * Customer factory method using default constructor.
+	 *
+	 * @return Customer object created with default constructor.
+	 */
+	public Customer createCustomer() {
+		return add(new Customer());
+	}
+
+	/**
+	 * Customer factory method using constructor with name argument.
+	 *
+	 * @param name single-String Customer name, e.g. "Eric Meyer".
+	 * @return Customer object created with constructor with name argument.
+	 */
+	public Customer createCustomer(String name) {
+		return add(new Customer(name));
+	}
+
+	/**
+	 * Article factory method using default constructor.
+	 *
+	 * @return Article object created with default constructor.
+	 */
+	public Article createArticle() {
+		return add(new Article());
+	}
+
+	/**
+	 * Article factory method using constructor with description and unitPrice
+	 * arguments.
+	 *
+	 * @param description descriptive text for article.
+	 * @param unitPrice   price (in cent) for one unit of the article.
+	 * @return Article object created with constructor with description and
+	 *         unitPrice arguments.
+	 */
+	public Article createArticle(String description, long unitPrice) {
+		return add(new Article(description, unitPrice));
+	}
+
+	/**
+	 * Order factory method using constructor with owning customer as argument.
+	 *
+	 * @param customer owning customer who created the order.
+	 * @return Order object created with constructor with owning customer as
+	 *         argument.
+	 * @throws IllegalArgumentException when customer argument is null or has
+	 *                                  invalid id.
+	 */
+	public Order createOrder(Customer customer) {
+		return add(new Order(customer));
+	}
+
+	/**
+	 * Getter method to return created Customer objects.
+	 *
+	 * @return immutable view of Customer objects created so far.
+	 */
+	public List<Customer> getCustomers() {
+		return customers.view();
+	}
+
+	/**
+	 * Getter method to return created Article objects.
+	 *
+	 * @return immutable view of Article objects created so far.
+	 */
+	public List<Article> getArticles() {
+		return articles.view();
+	}
+
+	/**
+	 * Getter method to return created Order objects.
+	 *
+	 * @return immutable view of Order objects created so far.
+	 */
+	public List<Order> getOrders() {
+		return orders.view();
+	}
+
+	/**
+	 * Take immutable point-in-time snapshot of created objects, e.g. for
+	 * long-running reports.
+	 * 
+	 * @return snapshot of created objects.
+	 */
+	public Snapshot snapshot() {
+		return new SnapshotImpl(customers.view(), articles.view(), orders.view());
+	}
+
+	/**
+	 * Save created objects in a compact binary format.
+	 * 
+	 * @param out output stream, not closed.
+	 * @return number of saved objects (customers, articles and orders).
+	 * @throws IOException if writing to output stream fails.
+	 */
+	public int save(OutputStream out) throws IOException {
+		return DatamodelCodec.save(snapshot(), out);
+	}
+
+	/**
+	 * Load objects saved with {@link #save(OutputStream)} and create them in this
+	 * factory.
+	 * 
+	 * @param in input stream, not closed.
+	 * @return number of loaded objects (customers, articles and orders).
+	 * @throws IOException if reading from input stream fails or input has an
+	 *                     invalid format.
+	 */
+	public int load(InputStream in) throws IOException {
+		return DatamodelCodec.load(this, in);
+	}
+
+	/**
+	 * Write objects pending in the journal to disk, no-op if objects are not
+	 * journaled.
+	 */
+	public void sync() {
+		OrderJournal j = journal;
+		if (j != null) {
+			j.sync();
+		}
+	}
+
+	/**
+	 * Attach journal that records objects created from now on and their
+	 * changes.
+	 * 
+	 * @param journal journal opened for this factory, null to detach.
+	 */
+	void setJournal(OrderJournal journal) {
+		this.journal = journal;
+	}
+
+	/**
+	 * Return number of created Customer objects.
+	 *
+	 * @return number of created Customer objects.
+	 */
+	public int customersCount() {
+		return customers.size();
+	}
+
+	/**
+	 * Return number of created Article objects.
+	 *
+	 * @return number of created Article objects.
+	 */
+	public int articlesCount() {
+		return articles.size();
+	}
+
+	/**
+	 * Find a created Customer object by its id.
+	 *
+	 * @param id customer id.
+	 * @return Optional with found object or empty Optional.
+	 */
+	public Optional<Customer> findCustomerById(long id) {
+		return Optional.ofNullable(customerIndex.get(id));
+	}
+
+	/**
+	 * Find a created Article object by its id.
+	 *
+	 * @param id article id.
+	 * @return Optional with found object or empty Optional.
+	 */
+	public Optional<Article> findArticleById(String id) {
+		return Optional.ofNullable(id != null ? articleIndex.get(id) : null);
+	}
+
+	/**
+	 * Find a created Order object by its id.
+	 *
+	 * @param id order id.
+	 * @return Optional with found object or empty Optional.
+	 */
+	public Optional<Order> findOrderById(String id) {
+		return Optional.ofNullable(id != null ? orderIndex.get(id) : null);
+	}
+
+	/**
+	 * Find all created Order objects owned by a customer.
+	 *
+	 * @param customerId customer id.
+	 * @return orders of customer in order of creation, empty list if none.
+	 */
+	public List<Order> findOrdersByCustomerId(long customerId) {
+		AppendLog<Order> bucket = ordersByCustomer.get(customerId);
+		return bucket != null ? bucket.view() : List.of();
+	}
+
+	/**
+	 * Find all created Order objects with items of an article.
+	 *
+	 * @param articleId article id.
+	 * @return orders that contain article in no particular order, empty list if
+	 *         none.
+	 */
+	public List<Order> findOrdersByArticleId(String articleId) {
+		Map<Order, Integer> bucket = findArticleById(articleId).map(ordersByArticle::get).orElse(null);
+		return bucket != null ? List.copyOf(bucket.keySet()) : List.of();
+	}
+
+	/**
+	 * Return number of created Order objects.
+	 *
+	 * @return number of created Order objects.
+	 */
+	public int ordersCount() {
+		return orders.size();
+	}
+
+	/*
+	 * Private methods to add objects to internal logs and indexes.
+	 */
+
+	private Customer add(Customer customer) {
+		customers.append(customer);
+		if (customer.getId() != null) {
+			customerIndex.putIfAbsent(customer.getId(), customer);
+		}
+		customer.setListener(customerListener);
+		return journaled(customer);
+	}
+
+	private Article add(Article article) {
+		articles.append(article);
+		if (article.getId() != null) {
+			articleIndex.putIfAbsent(article.getId(), article);
+		}
+		article.setListener(articleListener);
+		return journaled(article);
+	}
+
+	private Order add(Order order) {
+		orders.append(order);
+		if (order.getId() != null) {
+			orderIndex.putIfAbsent(order.getId(), order);
+		}
+		ordersByCustomer.computeIfAbsent(order.getCustomer().getId(), id -> new AppendLog<Order>()).append(order);
+		order.getItems().forEach(item -> itemListener.itemAdded(order, item));
+		order.setListener(itemListener);
+		return journaled(order);
+	}
+
+	/**
+	 * Report created or changed object to the journal.
+	 */
+	private <T> T journaled(T object) {
+		OrderJournal j = journal;
+		if (j != null) {
+			j.record(object);
+		}
+		return object;
+	}
+}
@@ -0,0 +1,138 @@
+package system.impl;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Properties;
+
+import datamodel.Currency;
+
+/**
+ * Cached table of currency conversion rates loaded from properties and
+ * reloaded periodically.
+ * <p>
+ * Rates are read from properties {@code "currency.rate.<CURRENCY>"} as the
+ * value of one unit of a currency in {@link Currency#EUR}, e.g.
+ * {@code currency.rate.USD = 0.92}. Rates convert the long values (cents) held
+ * for a currency. Currencies without (valid) rate are converted 1:1. Property
+ * {@code "currency.rates.reload"} sets the number of seconds after which the
+ * table is reloaded (default: 300). Loaded tables are immutable and can be used
+ * by concurrent threads.
+ * </p>
+ *
+ * @version <code style=
+ *          color:green>{@value application.package_info#Version}</code>
+ * @author <code style=
+ *         color:blue>{@value application.package_info#Author}</code>
+ */
+
+final class CurrencyRates {
+
+	/**
+	 * Prefix of rate properties, followed by the currency name.
+	 */
+	static final String RateProperty = "currency.rate.";
+
+	/**
+	 * Property with seconds after which rates are reloaded.
+	 */
+	static final String ReloadProperty = "currency.rates.reload";
+
+	/**
+	 * Default seconds after which rates are reloaded.
+	 */
+	static final long DEFAULT_RELOAD_SECONDS = 300L;
+
+	/**
+	 * Immutable table of rates indexed by Currency ordinal.
+	 */
+	static final class Table {
+		private final BigDecimal[] rates;
+		private final long expires; // System.nanoTime() after which table is reloaded
+
+		private Table(BigDecimal[] rates, long loaded, long period) {
+			this.rates = rates;
+			this.expires = loaded + period;
+		}
+
+		/**
+		 * Return rate of currency in EUR.
+		 *
+		 * @param currency currency.
+		 * @return value of one unit of currency in EUR, 1 for null.
+		 */
+		BigDecimal rate(Currency currency) {
+			return currency != null ? rates[currency.ordinal()] : BigDecimal.ONE;
+		}
+
+		/**
+		 * Convert value from one currency into another, rounded half up.
+		 *
+		 * @param value value in currency {@code from}.
+		 * @param from  currency of value.
+		 * @param to    currency to convert value into.
+		 * @return value in currency {@code to}.
+		 * @throws ArithmeticException if the converted value exceeds the long range.
+		 */
+		long convert(long value, Currency from, Currency to) {
+			final BigDecimal rf = rate(from), rt = rate(to);
+			if (value == 0 || rf.compareTo(rt) == 0)
+				return value;
+			return BigDecimal.valueOf(value).multiply(rf).divide(rt, 0, RoundingMode.HALF_UP).longValueExact();
+		}
+	}
+
+	private final Properties properties;
+	private volatile Table table = null;
+
+	/**
+	 * Constructor with properties from which rates are loaded.
+	 *
+	 * @param properties source of rates, may be changed and reloaded later.
+	 */
+	CurrencyRates(Properties properties) {
+		this.properties = properties != null ? properties : new Properties();
+	}
+
+	/**
+	 * Return cached table of rates, reloaded when expired.
+	 *
+	 * @return table of rates.
+	 */
+	Table table() {
+		final Table t = table;
+		return t != null && System.nanoTime() - t.expires < 0 ? t : reload();
+	}
+
+	/**
+	 * Load table of rates from properties, replaces the cached table.
+	 *
+	 * @return loaded table.
+	 */
+	Table reload() {
+		final Currency[] currencies = Currency.values();
+		final BigDecimal[] rates = new BigDecimal[currencies.length];
+		for (Currency currency : currencies) {
+			rates[currency.ordinal()] = currency == Currency.EUR ? BigDecimal.ONE
+					: parse(properties.getProperty(RateProperty + currency.name()), BigDecimal.ONE);
+		}
+		final BigDecimal seconds = parse(properties.getProperty(ReloadProperty),
+				BigDecimal.valueOf(DEFAULT_RELOAD_SECONDS));
+		final long period = seconds.min(BigDecimal.valueOf(Long.MAX_VALUE / 1_000_000_000L)).movePointRight(9)
+				.longValue();
+		final Table t = new Table(rates, System.nanoTime(), period);
+		table = t;
+		return t;
+	}
+
+	/**
+	 * Parse positive decimal property value.
+	 */
+	private static BigDecimal parse(String value, BigDecimal defaultValue) {
+		try {
+			final BigDecimal d = value != null ? new BigDecimal(value.trim()) : null;
+			return d != null && d.signum() > 0 ? d : defaultValue;
+		} catch (NumberFormatException e) {
+			return defaultValue;
+		}
+	}
+}
@@ -0,0 +1,169 @@
+package system.impl;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+import datamodel.Customer;
+
+/**
+ * Compact index of customers held in columnar arrays (id and {@link Customer}
+ * object of each row).
+ * <p>
+ * Customer ids are kept as primitive {@code long} values and are indexed by an
+ * open-addressing {@link LongIntIndex} that maps ids to row positions. Lookups
+ * and scans do not box ids or allocate objects. Names and contacts are not
+ * copied into the store, they are read from the Customer objects that remain
+ * the only copy of customer data.
+ * </p>
+ *
+ * @version <code style=
+ *          color:green>{@value application.package_info#Version}</code>
+ * @author <code style=
+ *         color:blue>{@value application.package_info#Author}</code>
+ */
+
+final class CustomerRepository {
+
+	/**
+	 * Callback interface to scan rows without materializing Customer objects.
+	 */
+	@FunctionalInterface
+	interface RowConsumer {
+		/**
+		 * Accept one row of the store.
+		 *
+		 * @param row      row position.
+		 * @param id       customer id.
+		 * @param customer Customer object of row.
+		 */
+		void accept(int row, long id, Customer customer);
+	}
+
+	/**
+	 * Columns of the store, valid for rows {@code 0 <= row < size}.
+	 */
+	private long[] ids;
+	private Customer[] customers;
+	private int size = 0;
+
+	/**
+	 * Index of customer ids mapped to row positions.
+	 */
+	private final LongIntIndex index;
+
+	/**
+	 * Constructor with default initial capacity.
+	 */
+	CustomerRepository() {
+		this(16);
+	}
+
+	/**
+	 * Constructor with expected number of customers.
+	 *
+	 * @param expected number of customers the store can hold without growing.
+	 */
+	CustomerRepository(int expected) {
+		int cap = Math.max(4, expected);
+		this.ids = new long[cap];
+		this.customers = new Customer[cap];
+		this.index = new LongIntIndex(cap);
+	}
+
+	/**
+	 * Add record of Customer object.
+	 *
+	 * @param customer customer with assigned id.
+	 * @return row position of added record.
+	 * @throws IllegalArgumentException if customer is null, has no id, id is
+	 *                                  invalid ({@code id < 0}) or already
+	 *                                  stored.
+	 */
+	int add(Customer customer) {
+		if (customer == null || customer.getId() == null)
+			throw new IllegalArgumentException("customer or Id Null");
+		final long id = customer.getId();
+		if (id < 0)
+			throw new IllegalArgumentException("invalid id (negative).");
+		if (size == ids.length) {
+			int cap = size << 1;
+			ids = Arrays.copyOf(ids, cap);
+			customers = Arrays.copyOf(customers, cap);
+		}
+		if (!index.putIfAbsent(id, size))
+			throw new IllegalArgumentException("duplicate id: " + id + ".");
+		//
+		ids[size] = id;
+		customers[size] = customer;
+		return size++;
+	}
+
+	/**
+	 * Return row position of customer id.
+	 *
+	 * @param id customer id.
+	 * @return row position or {@code -1} if id is not stored.
+	 */
+	int indexOf(long id) {
+		return id >= 0 ? index.get(id) : LongIntIndex.ABSENT;
+	}
+
+	/**
+	 * Id of row.
+	 *
+	 * @param row row position.
+	 * @return customer id.
+	 */
+	long id(int row) {
+		return ids[checkRow(row)];
+	}
+
+	/**
+	 * Customer object of row.
+	 *
+	 * @param row row position.
+	 * @return stored Customer object.
+	 */
+	Customer customer(int row) {
+		return customers[checkRow(row)];
+	}
+
+	/**
+	 * Find Customer object of id.
+	 *
+	 * @param id customer id.
+	 * @return Optional with Customer object or empty Optional.
+	 */
+	Optional<Customer> find(long id) {
+		int row = indexOf(id);
+		return row >= 0 ? Optional.of(customers[row]) : Optional.empty();
+	}
+
+	/**
+	 * Scan all rows in insertion order.
+	 *
+	 * @param consumer callback invoked for each row.
+	 */
+	void forEach(RowConsumer consumer) {
+		final long[] ids = this.ids;
+		final Customer[] customers = this.customers;
+		for (int row = 0, n = size; row < n; row++) {
+			consumer.accept(row, ids[row], customers[row]);
+		}
+	}
+
+	/**
+	 * Return number of stored customers.
+	 *
+	 * @return number of stored customers.
+	 */
+	int size() {
+		return size;
+	}
+
+	private int checkRow(int row) {
+		if (row < 0 || row >= size)
+			throw new IndexOutOfBoundsException(row);
+		return row;
+	}
+}
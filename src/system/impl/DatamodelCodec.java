@@ -0,0 +1,582 @@
+package system.impl;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import datamodel.Article;
+import datamodel.Currency;
+import datamodel.Customer;
+import datamodel.Order;
+import datamodel.OrderItem;
+import datamodel.TAX;
+import system.DatamodelFactory;
+
+/**
+ * Compact binary format to save and load Customer, Article, Order and
+ * OrderItem objects of a {@link DatamodelFactory}.
+ * <p>
+ * Numbers are written as variable-length integers (7 bits per byte), Strings
+ * (ids, names, contacts, descriptions) are written once into a dictionary and
+ * referenced by position, orders refer to customers and order items refer to
+ * articles by their position in the file. Layout:
+ * </p>
+ * 
+ * <pre>
+ * header:     magic "SE1D", version
+ * dictionary: count, {length, UTF-8 bytes}            (ref: 0 is null, i + 1 is String i)
+ * customers:  count, {id + 1, ref firstName, ref lastName, count, {ref contact}}
+ * articles:   count, {ref id, ref description, unitPrice, currency + 1, tax + 1}
+ * orders:     count, {ref id, customer, creationDate (zig-zag), count, {article, units}}
+ * </pre>
+ *
+ * @version <code style=
+ *          color:green>{@value application.package_info#Version}</code>
+ * @author <code style=
+ *         color:blue>{@value application.package_info#Author}</code>
+ */
+
+final class DatamodelCodec {
+
+	/**
+	 * Magic number "SE1D" and format version at the start of the file.
+	 */
+	static final int MAGIC = 0x53453144;
+	static final int VERSION = 1;
+
+	private static final Currency[] currencies = Currency.values();
+	private static final TAX[] taxes = TAX.values();
+
+	/**
+	 * Private constructor of class with static methods.
+	 */
+	private DatamodelCodec() {
+	}
+
+	/**
+	 * Save objects of snapshot. Customers and articles referred by orders but not
+	 * contained in the snapshot are saved with the snapshot.
+	 *
+	 * @param snapshot objects to save.
+	 * @param out      output stream, not closed.
+	 * @return number of saved objects (customers, articles and orders).
+	 * @throws IOException if writing to output stream fails.
+	 */
+	static int save(DatamodelFactory.Snapshot snapshot, OutputStream out) throws IOException {
+		return save(snapshot, out, null);
+	}
+
+	/**
+	 * Save objects of snapshot and collect saved objects in the order in which
+	 * they are saved (customers, articles, orders).
+	 *
+	 * @param snapshot objects to save.
+	 * @param out      output stream, not closed.
+	 * @param objects  collects saved objects, may be null.
+	 * @return number of saved objects (customers, articles and orders).
+	 * @throws IOException if writing to output stream fails.
+	 */
+	static int save(DatamodelFactory.Snapshot snapshot, OutputStream out, List<Object> objects) throws IOException {
+		final List<Customer> customers = new ArrayList<Customer>(snapshot.getCustomers());
+		final List<Article> articles = new ArrayList<Article>(snapshot.getArticles());
+		final List<Order> orders = snapshot.getOrders();
+		final Map<Customer, Integer> customerIndex = index(customers);
+		final Map<Article, Integer> articleIndex = index(articles);
+		final Map<String, Integer> dictionary = new HashMap<String, Integer>();
+		final List<String> strings = new ArrayList<String>();
+		for (Order order : orders) {
+			if (!customerIndex.containsKey(order.getCustomer())) {
+				customerIndex.put(order.getCustomer(), customers.size());
+				customers.add(order.getCustomer());
+			}
+			for (OrderItem item : order.getItems()) {
+				if (!articleIndex.containsKey(item.getArticle())) {
+					articleIndex.put(item.getArticle(), articles.size());
+					articles.add(item.getArticle());
+				}
+			}
+		}
+		//
+		final Encoder enc = new Encoder(out);
+		enc.writeInt(MAGIC);
+		enc.writeVarLong(VERSION);
+		// collect Strings in order of first use
+		for (Customer c : customers) {
+			intern(c.getFirstName(), dictionary, strings);
+			intern(c.getLastName(), dictionary, strings);
+			for (String contact : c.getContacts()) {
+				intern(contact, dictionary, strings);
+			}
+		}
+		for (Article a : articles) {
+			intern(a.getId(), dictionary, strings);
+			intern(a.getDescription(), dictionary, strings);
+		}
+		for (Order o : orders) {
+			intern(o.getId(), dictionary, strings);
+		}
+		enc.writeVarLong(strings.size());
+		for (String s : strings) {
+			enc.writeString(s);
+		}
+		//
+		enc.writeVarLong(customers.size());
+		for (Customer c : customers) {
+			final Long id = c.getId();
+			enc.writeVarLong(id != null ? id + 1 : 0);
+			enc.writeVarLong(ref(c.getFirstName(), dictionary));
+			enc.writeVarLong(ref(c.getLastName(), dictionary));
+			final String[] contacts = c.getContacts();
+			enc.writeVarLong(contacts.length);
+			for (String contact : contacts) {
+				enc.writeVarLong(ref(contact, dictionary));
+			}
+		}
+		enc.writeVarLong(articles.size());
+		for (Article a : articles) {
+			enc.writeVarLong(ref(a.getId(), dictionary));
+			enc.writeVarLong(ref(a.getDescription(), dictionary));
+			enc.writeVarLong(a.getUnitPrice());
+			enc.writeVarLong(a.getCurrency() != null ? a.getCurrency().ordinal() + 1 : 0);
+			enc.writeVarLong(a.getTax() != null ? a.getTax().ordinal() + 1 : 0);
+		}
+		enc.writeVarLong(orders.size());
+		for (Order o : orders) {
+			enc.writeVarLong(ref(o.getId(), dictionary));
+			enc.writeVarLong(customerIndex.get(o.getCustomer()));
+			final long date = o.getCreationDate();
+			enc.writeVarLong((date << 1) ^ (date >> 63)); // zig-zag
+			enc.writeVarLong(o.itemsCount());
+			for (OrderItem item : o.getItems()) {
+				enc.writeVarLong(articleIndex.get(item.getArticle()));
+				enc.writeVarLong(item.getUnitsOrdered());
+			}
+		}
+		enc.flush();
+		if (objects != null) {
+			objects.addAll(customers);
+			objects.addAll(articles);
+			objects.addAll(orders);
+		}
+		return customers.size() + articles.size() + orders.size();
+	}
+
+	/**
+	 * Load objects and create them in factory.
+	 *
+	 * @param factory factory that creates loaded objects.
+	 * @param in      input stream, not closed.
+	 * @return number of loaded objects (customers, articles and orders).
+	 * @throws IOException if reading from input stream fails or input has an
+	 *                     invalid format.
+	 */
+	static int load(DatamodelFactory factory, InputStream in) throws IOException {
+		return load(factory, in, null);
+	}
+
+	/**
+	 * Load objects, create them in factory and collect them in the order in which
+	 * they were saved (customers, articles, orders). Input is decoded and checked
+	 * completely before the first object is created, so invalid input creates no
+	 * objects.
+	 *
+	 * @param factory factory that creates loaded objects.
+	 * @param in      input stream, not closed.
+	 * @param objects collects loaded objects, may be null.
+	 * @return number of loaded objects (customers, articles and orders).
+	 * @throws IOException if reading from input stream fails or input has an
+	 *                     invalid format.
+	 */
+	static int load(DatamodelFactory factory, InputStream in, List<Object> objects) throws IOException {
+		final Decoder dec = new Decoder(in);
+		if (dec.readInt() != MAGIC)
+			throw new IOException("invalid format (magic).");
+		if (dec.readVarLong() != VERSION)
+			throw new IOException("unsupported format version.");
+		//
+		// decode and check all values, no objects are created yet
+		// (arrays grow with the input, so corrupt counts end with end of input)
+		final int stringsCount = dec.readCount();
+		String[] strings = new String[initial(stringsCount)];
+		for (int i = 0; i < stringsCount; i++) {
+			strings = grow(strings, i, stringsCount);
+			strings[i] = dec.readString();
+		}
+		final int customersCount = dec.readCount();
+		DecodedCustomer[] customers = new DecodedCustomer[initial(customersCount)];
+		for (int i = 0; i < customersCount; i++) {
+			final long id = dec.readVarLong();
+			if (id < 0)
+				throw new IOException("invalid format (customer id).");
+			final String firstName = string(strings, dec.readVarLong());
+			final String lastName = string(strings, dec.readVarLong());
+			final int contactsCount = dec.readCount();
+			String[] contacts = new String[initial(contactsCount)];
+			for (int k = 0; k < contactsCount; k++) {
+				contacts = grow(contacts, k, contactsCount);
+				contacts[k] = string(strings, dec.readVarLong());
+			}
+			customers = grow(customers, i, customersCount);
+			customers[i] = new DecodedCustomer(id - 1, firstName, lastName, contacts);
+		}
+		final int articlesCount = dec.readCount();
+		DecodedArticle[] articles = new DecodedArticle[initial(articlesCount)];
+		for (int i = 0; i < articlesCount; i++) {
+			final String id = string(strings, dec.readVarLong());
+			final String description = string(strings, dec.readVarLong());
+			final long unitPrice = dec.readVarLong();
+			if (unitPrice < 0)
+				throw new IOException("invalid format (unit price).");
+			final long currency = dec.readVarLong();
+			final long tax = dec.readVarLong();
+			articles = grow(articles, i, articlesCount);
+			articles[i] = new DecodedArticle(id, description, unitPrice,
+					currency > 0 ? element(currencies, currency - 1) : null, tax > 0 ? element(taxes, tax - 1) : null);
+		}
+		final int ordersCount = dec.readCount();
+		DecodedOrder[] orders = new DecodedOrder[initial(ordersCount)];
+		for (int i = 0; i < ordersCount; i++) {
+			final String id = string(strings, dec.readVarLong());
+			final int customer = index(customersCount, dec.readVarLong());
+			final long date = dec.readVarLong();
+			final int itemsCount = dec.readCount();
+			int[] items = new int[2 * initial(itemsCount)];
+			for (int k = 0; k < 2 * itemsCount; k += 2) {
+				if (k == items.length) {
+					items = Arrays.copyOf(items, 2 * (int) Math.min(itemsCount, (long) items.length));
+				}
+				items[k] = index(articlesCount, dec.readVarLong());
+				final long units = dec.readVarLong();
+				if (units < 0 || units > Integer.MAX_VALUE)
+					throw new IOException("invalid format (units).");
+				items[k + 1] = (int) units;
+			}
+			orders = grow(orders, i, ordersCount);
+			orders[i] = new DecodedOrder(id, customer, (date >>> 1) ^ -(date & 1), items);
+		}
+		//
+		// create objects from checked values, rejected values are format errors
+		try {
+			final Customer[] createdCustomers = new Customer[customersCount];
+			for (int i = 0; i < customersCount; i++) {
+				createdCustomers[i] = customers[i].create(factory);
+			}
+			final Article[] createdArticles = new Article[articlesCount];
+			for (int i = 0; i < articlesCount; i++) {
+				createdArticles[i] = articles[i].create(factory);
+			}
+			if (objects != null) {
+				objects.addAll(Arrays.asList(createdCustomers));
+				objects.addAll(Arrays.asList(createdArticles));
+			}
+			for (int i = 0; i < ordersCount; i++) {
+				final Order o = orders[i].create(factory, createdCustomers, createdArticles);
+				if (objects != null) {
+					objects.add(o);
+				}
+			}
+		} catch (IllegalArgumentException e) {
+			throw new IOException("invalid format (" + e.getMessage() + ").", e);
+		}
+		return customersCount + articlesCount + ordersCount;
+	}
+
+	/**
+	 * Customer values decoded from input.
+	 */
+	private static final class DecodedCustomer {
+		private final long id; // -1 without id
+		private final String firstName;
+		private final String lastName;
+		private final String[] contacts;
+
+		DecodedCustomer(long id, String firstName, String lastName, String[] contacts) throws IOException {
+			this.id = id;
+			this.firstName = firstName;
+			this.lastName = lastName;
+			this.contacts = contacts;
+			// contacts are checked against a detached customer
+			final Customer check = contacts.length > 0 ? new Customer() : null;
+			for (String contact : contacts) {
+				try {
+					check.addContact(contact);
+				} catch (IllegalArgumentException e) {
+					throw new IOException("invalid format (contact).", e);
+				}
+			}
+		}
+
+		Customer create(DatamodelFactory factory) {
+			final Customer c = factory.createCustomer().setName(firstName, lastName);
+			if (id >= 0) {
+				c.setId(id);
+			}
+			for (String contact : contacts) {
+				c.addContact(contact);
+			}
+			return c;
+		}
+	}
+
+	/**
+	 * Article values decoded from input.
+	 */
+	private static final class DecodedArticle {
+		private final String id;
+		private final String description;
+		private final long unitPrice;
+		private final Currency currency; // null: default currency
+		private final TAX tax; // null: default tax
+
+		DecodedArticle(String id, String description, long unitPrice, Currency currency, TAX tax) {
+			this.id = id;
+			this.description = description;
+			this.unitPrice = unitPrice;
+			this.currency = currency;
+			this.tax = tax;
+		}
+
+		Article create(DatamodelFactory factory) {
+			final Article a = description == null || description.isEmpty()
+					? factory.createArticle().setUnitPrice(unitPrice)
+					: factory.createArticle(description, unitPrice);
+			if (id != null) {
+				a.setId(id);
+			}
+			if (currency != null) {
+				a.setCurrency(currency);
+			}
+			if (tax != null) {
+				a.setTax(tax);
+			}
+			return a;
+		}
+	}
+
+	/**
+	 * Order values decoded from input.
+	 */
+	private static final class DecodedOrder {
+		private final String id;
+		private final int customer;
+		private final long creationDate;
+		private final int[] items; // {article, units} pairs
+
+		DecodedOrder(String id, int customer, long creationDate, int[] items) {
+			this.id = id;
+			this.customer = customer;
+			this.creationDate = creationDate;
+			this.items = items;
+		}
+
+		Order create(DatamodelFactory factory, Customer[] customers, Article[] articles) {
+			final Order o = factory.createOrder(customers[customer]).setCreationDate(creationDate);
+			if (id != null) {
+				o.setId(id);
+			}
+			for (int k = 0; k < items.length; k += 2) {
+				o.addItem(articles[items[k]], items[k + 1]);
+			}
+			return o;
+		}
+	}
+
+	/*
+	 * Private helper methods.
+	 */
+
+	private static <T> Map<T, Integer> index(List<T> list) {
+		final Map<T, Integer> index = new IdentityHashMap<T, Integer>(list.size() * 2);
+		for (int i = 0; i < list.size(); i++) {
+			index.putIfAbsent(list.get(i), i);
+		}
+		return index;
+	}
+
+	private static void intern(String s, Map<String, Integer> dictionary, List<String> strings) {
+		if (s != null && !dictionary.containsKey(s)) {
+			dictionary.put(s, strings.size());
+			strings.add(s);
+		}
+	}
+
+	private static long ref(String s, Map<String, Integer> dictionary) {
+		return s != null ? dictionary.get(s) + 1 : 0;
+	}
+
+	private static String string(String[] strings, long ref) throws IOException {
+		return ref == 0 ? null : element(strings, ref - 1);
+	}
+
+	private static <T> T element(T[] array, long i) throws IOException {
+		return array[index(array.length, i)];
+	}
+
+	private static int index(int count, long i) throws IOException {
+		if (i < 0 || i >= count)
+			throw new IOException("invalid format (reference " + i + ").");
+		return (int) i;
+	}
+
+	private static int initial(int count) {
+		return Math.min(count, 1 << 12);
+	}
+
+	private static <T> T[] grow(T[] array, int i, int count) {
+		return i < array.length ? array : Arrays.copyOf(array, (int) Math.min(count, 2L * array.length));
+	}
+
+	/**
+	 * Buffered writer of variable-length integers and Strings.
+	 */
+	private static final class Encoder {
+		private final OutputStream out;
+		private final byte[] buf = new byte[1 << 16];
+		private int pos = 0;
+
+		Encoder(OutputStream out) {
+			this.out = out;
+		}
+
+		void writeInt(int v) throws IOException {
+			ensure(4);
+			buf[pos++] = (byte) (v >>> 24);
+			buf[pos++] = (byte) (v >>> 16);
+			buf[pos++] = (byte) (v >>> 8);
+			buf[pos++] = (byte) v;
+		}
+
+		void writeVarLong(long v) throws IOException {
+			ensure(10);
+			while ((v & ~0x7FL) != 0) {
+				buf[pos++] = (byte) ((v & 0x7F) | 0x80);
+				v >>>= 7;
+			}
+			buf[pos++] = (byte) v;
+		}
+
+		void writeString(String s) throws IOException {
+			final byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+			writeVarLong(bytes.length);
+			if (bytes.length > buf.length - pos) {
+				flushBuffer();
+				if (bytes.length > buf.length) {
+					out.write(bytes);
+					return;
+				}
+			}
+			System.arraycopy(bytes, 0, buf, pos, bytes.length);
+			pos += bytes.length;
+		}
+
+		void flush() throws IOException {
+			flushBuffer();
+			out.flush();
+		}
+
+		private void ensure(int n) throws IOException {
+			if (buf.length - pos < n) {
+				flushBuffer();
+			}
+		}
+
+		private void flushBuffer() throws IOException {
+			out.write(buf, 0, pos);
+			pos = 0;
+		}
+	}
+
+	/**
+	 * Buffered reader of variable-length integers and Strings.
+	 */
+	private static final class Decoder {
+		private final InputStream in;
+		private final byte[] buf = new byte[1 << 16];
+		private int pos = 0;
+		private int limit = 0;
+
+		Decoder(InputStream in) {
+			this.in = in;
+		}
+
+		int readInt() throws IOException {
+			return (readByte() << 24) | (readByte() << 16) | (readByte() << 8) | readByte();
+		}
+
+		long readVarLong() throws IOException {
+			long v = 0;
+			for (int shift = 0; shift < 64; shift += 7) {
+				final int b = readByte();
+				v |= (long) (b & 0x7F) << shift;
+				if ((b & 0x80) == 0)
+					return v;
+			}
+			throw new IOException("invalid format (varint).");
+		}
+
+		int readCount() throws IOException {
+			final long n = readVarLong();
+			if (n < 0 || n > Integer.MAX_VALUE - 8)
+				throw new IOException("invalid format (count " + n + ").");
+			return (int) n;
+		}
+
+		String readString() throws IOException {
+			final int len = readCount();
+			if (len <= buf.length) {
+				if (limit - pos < len) {
+					System.arraycopy(buf, pos, buf, 0, limit - pos);
+					limit -= pos;
+					pos = 0;
+					while (limit < len) {
+						fill();
+					}
+				}
+				final String s = new String(buf, pos, len, StandardCharsets.UTF_8);
+				pos += len;
+				return s;
+			}
+			// long strings are read in buffered chunks into an array that grows with
+			// the bytes read, a corrupt length fails with EOFException at the end of
+			// input instead of allocating the length up front
+			byte[] bytes = new byte[buf.length << 1];
+			for (int n = 0; n < len;) {
+				if (pos == limit) {
+					pos = limit = 0;
+					fill();
+				}
+				final int k = Math.min(limit - pos, len - n);
+				if (n + k > bytes.length) {
+					bytes = Arrays.copyOf(bytes, (int) Math.min(len, 2L * bytes.length));
+				}
+				System.arraycopy(buf, pos, bytes, n, k);
+				pos += k;
+				n += k;
+			}
+			return new String(bytes, 0, len, StandardCharsets.UTF_8);
+		}
+
+		private int readByte() throws IOException {
+			if (pos == limit) {
+				pos = limit = 0;
+				fill();
+			}
+			return buf[pos++] & 0xFF;
+		}
+
+		private void fill() throws IOException {
+			final int r = in.read(buf, limit, buf.length - limit);
+			if (r < 0)
+				throw new EOFException();
+			limit += r;
+		}
+	}
+}
@@ -1,10 +1,14 @@
 package system.impl;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.*;
 
 import datamodel.Customer;
 import datamodel.Article;
 import datamodel.Order;
+import datamodel.OrderItem;
 import system.DatamodelFactory;
 
 /**
@@ -19,11 +23,108 @@ import system.DatamodelFactory;
 class DatamodelFactoryImpl implements DatamodelFactory {
 
 	/**
-	 * Internal lists of Customer, Article and Order objects.
+	 * Internal append-only logs of Customer, Article and Order objects, getters
+	 * and snapshots return immutable views.
 	 */
-	private final List<Customer> customers = new ArrayList<Customer>();
-	private final List<Article> articles = new ArrayList<Article>();
-	private final List<Order> orders = new ArrayList<Order>();
+	private final AppendLog<Customer> customers = new AppendLog<Customer>();
+	private final AppendLog<Article> articles = new AppendLog<Article>();
+	private final AppendLog<Order> orders = new AppendLog<Order>();
+
+	/**
+	 * Primary-key indexes: customers with id are held in a columnar
+	 * repository of ids and objects, article and order ids are mapped to objects. Ids
+	 * are usually assigned after creation, e.g.
+	 * {@code createCustomer("Eric Meyer").setId(892474L)}, objects are indexed
+	 * when their (immutable) id is assigned. The first object that is assigned an
+	 * id wins.
+	 */
+	private final CustomerRepository customerRepository = new CustomerRepository();
+	private final Map<String, Article> articleIndex = new HashMap<String, Article>();
+	private final Map<String, Order> orderIndex = new HashMap<String, Order>();
+
+	/**
+	 * Secondary indexes: customer id mapped to position of the customer's orders
+	 * in ordersByCustomer, article mapped to the set of orders with items of the
+	 * article (in order of insertion) with the number of such items in each
+	 * order. Both are maintained when orders are created and when items are added
+	 * or removed.
+	 */
+	private final LongIntIndex customerOrdersIndex = new LongIntIndex();
+	private final List<List<Order>> ordersByCustomer = new ArrayList<List<Order>>();
+	private final Map<Article, Map<Order, Integer>> ordersByArticle = new IdentityHashMap<Article, Map<Order, Integer>>();
+
+	/**
+	 * Journal that records created and changed objects, null if objects are not
+	 * journaled.
+	 */
+	private volatile OrderJournal journal = null;
+
+	/**
+	 * Listeners attached to created customers and articles that index ids when
+	 * they are assigned and report changes to the journal.
+	 */
+	private final Customer.Listener customerListener = new Customer.Listener() {
+		@Override
+		public void idAssigned(Customer customer) {
+			index(customer);
+			journaled(customer);
+		}
+
+		@Override
+		public void changed(Customer customer) {
+			journaled(customer);
+		}
+	};
+
+	private final Article.Listener articleListener = new Article.Listener() {
+		@Override
+		public void idAssigned(Article article) {
+			index(article);
+			journaled(article);
+		}
+
+		@Override
+		public void changed(Article article) {
+			journaled(article);
+		}
+	};
+
+	/**
+	 * Listener attached to created orders that indexes ids when they are
+	 * assigned, maintains the article index and reports changed orders to the
+	 * journal.
+	 */
+	private final Order.Listener itemListener = new Order.Listener() {
+		@Override
+		public void itemAdded(Order order, OrderItem item) {
+			ordersByArticle.computeIfAbsent(item.getArticle(), a -> new LinkedHashMap<Order, Integer>())
+				.merge(order, 1, Integer::sum);
+			OrderJournal j = journal;
+			if (j != null) {
+				j.recordItemAdded(order, item);
+			}
+		}
+
+		@Override
+		public void itemRemoved(Order order, OrderItem item) {
+			Map<Order, Integer> bucket = ordersByArticle.get(item.getArticle());
+			if (bucket != null) {
+				bucket.computeIfPresent(order, (o, n) -> n > 1 ? n - 1 : null);
+			}
+			journaled(order);
+		}
+
+		@Override
+		public void idAssigned(Order order) {
+			index(order);
+			journaled(order);
+		}
+
+		@Override
+		public void changed(Order order) {
+			journaled(order);
+		}
+	};
 
 	/**
 	 * Customer factory method using default constructor.
@@ -82,28 +183,83 @@ class DatamodelFactoryImpl implements DatamodelFactory {
 	/**
 	 * Getter method to return created Customer objects.
 	 * 
-	 * @return created Customer objects.
+	 * @return immutable view of Customer objects created so far.
 	 */
 	public List<Customer> getCustomers() {
-		return customers;
+		return customers.view();
 	}
 
 	/**
 	 * Getter method to return created Article objects.
 	 * 
-	 * @return created Article objects.
+	 * @return immutable view of Article objects created so far.
 	 */
 	public List<Article> getArticles() {
-		return articles;
+		return articles.view();
 	}
 
 	/**
 	 * Getter method to return created Order objects.
 	 * 
-	 * @return created Order objects.
+	 * @return immutable view of Order objects created so far.
 	 */
 	public List<Order> getOrders() {
-		return orders;
+		return orders.view();
+	}
+
+	/**
+	 * Take immutable point-in-time snapshot of created objects, e.g. for
+	 * long-running reports.
+	 * 
+	 * @return snapshot of created objects.
+	 */
+	public Snapshot snapshot() {
+		return new SnapshotImpl(customers.view(), articles.view(), orders.view());
+	}
+
+	/**
+	 * Save created objects in a compact binary format.
+	 * 
+	 * @param out output stream, not closed.
+	 * @return number of saved objects (customers, articles and orders).
+	 * @throws IOException if writing to output stream fails.
+	 */
+	public int save(OutputStream out) throws IOException {
+		return DatamodelCodec.save(snapshot(), out);
+	}
+
+	/**
+	 * Load objects saved with {@link #save(OutputStream)} and create them in this
+	 * factory.
+	 * 
+	 * @param in input stream, not closed.
+	 * @return number of loaded objects (customers, articles and orders).
+	 * @throws IOException if reading from input stream fails or input has an
+	 *                     invalid format.
+	 */
+	public int load(InputStream in) throws IOException {
+		return DatamodelCodec.load(this, in);
+	}
+
+	/**
+	 * Write objects pending in the journal to disk, no-op if objects are not
+	 * journaled.
+	 */
+	public void sync() {
+		OrderJournal j = journal;
+		if (j != null) {
+			j.sync();
+		}
+	}
+
+	/**
+	 * Attach journal that records objects created from now on and their
+	 * changes.
+	 * 
+	 * @param journal journal opened for this factory, null to detach.
+	 */
+	void setJournal(OrderJournal journal) {
+		this.journal = journal;
 	}
 
 	/**
@@ -131,7 +287,7 @@ class DatamodelFactoryImpl implements DatamodelFactory {
 	 * @return Optional with found object or empty Optional.
 	 */
 	public Optional<Customer> findCustomerById(long id) {
-		return customers.stream().filter(c -> c.getId() == id).findFirst();
+		return customerRepository.find(id);
 	}
 
 	/**
@@ -141,7 +297,7 @@ class DatamodelFactoryImpl implements DatamodelFactory {
 	 * @return Optional with found object or empty Optional.
 	 */
 	public Optional<Article> findArticleById(String id) {
-		return articles.stream().filter(a -> a.getId().equals(id)).findFirst();
+		return Optional.ofNullable(id != null ? articleIndex.get(id) : null);
 	}
 
 	/**
@@ -151,7 +307,29 @@ class DatamodelFactoryImpl implements DatamodelFactory {
 	 * @return Optional with found object or empty Optional.
 	 */
 	public Optional<Order> findOrderById(String id) {
-		return orders.stream().filter(o -> o.getId().equals(id)).findFirst();
+		return Optional.ofNullable(id != null ? orderIndex.get(id) : null);
+	}
+
+	/**
+	 * Find all created Order objects owned by a customer.
+	 * 
+	 * @param customerId customer id.
+	 * @return orders of customer in order of creation, empty list if none.
+	 */
+	public List<Order> findOrdersByCustomerId(long customerId) {
+		int i = customerId != LongIntIndex.EMPTY ? customerOrdersIndex.get(customerId) : LongIntIndex.ABSENT;
+		return i != LongIntIndex.ABSENT ? Collections.unmodifiableList(ordersByCustomer.get(i)) : List.of();
+	}
+
+	/**
+	 * Find all created Order objects with items of an article.
+	 * 
+	 * @param articleId article id.
+	 * @return orders that contain article, empty list if none.
+	 */
+	public List<Order> findOrdersByArticleId(String articleId) {
+		Map<Order, Integer> bucket = findArticleById(articleId).map(ordersByArticle::get).orElse(null);
+		return bucket != null ? List.copyOf(bucket.keySet()) : List.of();
 	}
 
 	/**
@@ -164,21 +342,70 @@ class DatamodelFactoryImpl implements DatamodelFactory {
 	}
 
 	/*
-	 * Private methods to add objects to internal lists.
+	 * Private methods to add objects to internal lists and indexes.
 	 */
 
 	private Customer add(Customer customer) {
-		customers.add(customer);
-		return customer;
+		customers.append(customer);
+		index(customer);
+		customer.setListener(customerListener);
+		return journaled(customer);
 	}
 
 	private Article add(Article article) {
-		articles.add(article);
-		return article;
+		articles.append(article);
+		index(article);
+		article.setListener(articleListener);
+		return journaled(article);
 	}
 
 	private Order add(Order order) {
-		orders.add(order);
-		return order;
+		orders.append(order);
+		index(order);
+		long customerId = order.getCustomer().getId();
+		int i = customerOrdersIndex.get(customerId);
+		if (i == LongIntIndex.ABSENT) {
+			customerOrdersIndex.putIfAbsent(customerId, i = ordersByCustomer.size());
+			ordersByCustomer.add(new ArrayList<Order>());
+		}
+		ordersByCustomer.get(i).add(order);
+		order.getItems().forEach(item -> itemListener.itemAdded(order, item));
+		order.setListener(itemListener);
+		return journaled(order);
+	}
+
+	/*
+	 * Private methods that index objects with assigned ids, objects without id
+	 * are indexed later by the listeners.
+	 */
+
+	private void index(Customer customer) {
+		Long id = customer.getId();
+		if (id != null && customerRepository.indexOf(id) < 0) {
+			customerRepository.add(customer);
+		}
+	}
+
+	private void index(Article article) {
+		if (article.getId() != null) {
+			articleIndex.putIfAbsent(article.getId(), article);
+		}
+	}
+
+	private void index(Order order) {
+		if (order.getId() != null) {
+			orderIndex.putIfAbsent(order.getId(), order);
+		}
+	}
+
+	/**
+	 * Report created or changed object to the journal.
+	 */
+	private <T> T journaled(T object) {
+		OrderJournal j = journal;
+		if (j != null) {
+			j.record(object);
+		}
+		return object;
 	}
 }
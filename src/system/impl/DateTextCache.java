@@ -0,0 +1,107 @@
+package system.impl;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded, lock-free cache of formatted date/time texts keyed by epoch second
+ * and formatting style.
+ * <p>
+ * The cache is a direct-mapped table of immutable entries, a new entry simply
+ * replaces the entry in its slot. Lookups and updates need no locks and can be
+ * used by concurrent threads. Many orders created within the same second (e.g.
+ * in bulk imports) share one formatted text.
+ * </p>
+ *
+ * @version <code style=
+ *          color:green>{@value application.package_info#Version}</code>
+ * @author <code style=
+ *         color:blue>{@value application.package_info#Author}</code>
+ */
+
+final class DateTextCache {
+
+	/**
+	 * Immutable cache entry.
+	 */
+	private static final class Entry {
+		final long second; // epoch second
+		final int style; // combined date and time style
+		final String fill; // fill between date and time, may be null
+		final String text; // formatted text
+
+		Entry(long second, int style, String fill, String text) {
+			this.second = second;
+			this.style = style;
+			this.fill = fill;
+			this.text = text;
+		}
+	}
+
+	private final AtomicReferenceArray<Entry> slots;
+	private final int mask;
+
+	/**
+	 * Hit and miss counters.
+	 */
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+
+	/**
+	 * Constructor with number of slots.
+	 *
+	 * @param size number of slots, rounded up to a power of two.
+	 */
+	DateTextCache(int size) {
+		int cap = Integer.highestOneBit(Math.max(2, size) * 2 - 1);
+		this.slots = new AtomicReferenceArray<Entry>(cap);
+		this.mask = cap - 1;
+	}
+
+	/**
+	 * Return cached text.
+	 *
+	 * @param second epoch second.
+	 * @param style  combined date and time style.
+	 * @param fill   fill between date and time, may be null.
+	 * @return cached text or null if not cached.
+	 */
+	String get(long second, int style, String fill) {
+		Entry e = slots.get(slot(second, style));
+		if (e != null && e.second == second && e.style == style && Objects.equals(e.fill, fill)) {
+			hits.increment();
+			return e.text;
+		}
+		misses.increment();
+		return null;
+	}
+
+	/**
+	 * Cache text, replaces the entry in the same slot.
+	 *
+	 * @param second epoch second.
+	 * @param style  combined date and time style.
+	 * @param fill   fill between date and time, may be null.
+	 * @param text   formatted text.
+	 * @return cached text.
+	 */
+	String put(long second, int style, String fill, String text) {
+		slots.lazySet(slot(second, style), new Entry(second, style, fill, text));
+		return text;
+	}
+
+	/**
+	 * Return hit and miss counts.
+	 *
+	 * @return tuple with {hits, misses}.
+	 */
+	long[] stats() {
+		return new long[] { hits.sum(), misses.sum() };
+	}
+
+	private int slot(long second, int style) {
+		long h = (second * 31 + style) * 0x9E3779B97F4A7C15L;
+		return (int) (h >>> 40) & mask;
+	}
+}
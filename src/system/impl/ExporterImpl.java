@@ -0,0 +1,293 @@
+package system.impl;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import datamodel.Article;
+import datamodel.Currency;
+import datamodel.Customer;
+import datamodel.Order;
+import datamodel.OrderItem;
+import datamodel.TAX;
+import system.Calculator;
+import system.Exporter;
+import system.Formatter;
+import system.Importer;
+
+/**
+ * Exporter that streams orders into a character buffer of
+ * {@link #BUFFER_SIZE} characters, which is written to the destination
+ * whenever it is full. VAT is calculated by the {@link Calculator}, names and
+ * dates are formatted by the {@link Formatter}. Order totals are aggregated
+ * per currency and converted into EUR, as done by
+ * {@link Calculator#calculateValueAndTax(Order)}, grand totals are the sums of
+ * the exported order totals.
+ *
+ * @version <code style=
+ *          color:green>{@value application.package_info#Version}</code>
+ * @author <code style=
+ *         color:blue>{@value application.package_info#Author}</code>
+ */
+
+class ExporterImpl implements Exporter {
+
+	/**
+	 * Number of buffered characters that triggers a write to the destination.
+	 */
+	static final int BUFFER_SIZE = 1 << 16;
+
+	/**
+	 * CSV header line.
+	 */
+	static final String CSV_HEADER = "type,order,customer_id,customer,created,article,description,units,unit_price,price,vat,tax,currency";
+
+	private static final Currency[] currencies = Currency.values();
+
+	/**
+	 * Dependency on Calculator and Formatter.
+	 */
+	private final Calculator calculator;
+	private final Formatter formatter;
+
+	/**
+	 * Constructor with dependencies.
+	 *
+	 * @param calculator calculator for VAT and currency conversion.
+	 * @param formatter  formatter for names and dates.
+	 */
+	ExporterImpl(Calculator calculator, Formatter formatter) {
+		this.calculator = calculator;
+		this.formatter = formatter;
+	}
+
+	/**
+	 * Export orders to writer.
+	 *
+	 * @param out    destination of the export, flushed but not closed.
+	 * @param orders orders to export (null elements are ignored).
+	 * @param format format of the export.
+	 * @return number of written lines.
+	 * @throws IOException if writing fails.
+	 */
+	@Override
+	public long exportOrders(Writer out, Iterable<Order> orders, Importer.Format format) throws IOException {
+		final Export export = new Export(out, format == Importer.Format.CSV);
+		if (export.csv) {
+			export.sb.append(CSV_HEADER);
+			export.endLine();
+		}
+		for (Order order : orders) {
+			if (order != null) {
+				export.order(order);
+			}
+		}
+		export.total();
+		export.flush();
+		out.flush();
+		return export.lines;
+	}
+
+	/**
+	 * Export orders to file in format selected by its name extension.
+	 *
+	 * @param path   path of export file.
+	 * @param orders orders to export (null elements are ignored).
+	 * @return number of written lines.
+	 * @throws IOException if the file cannot be written.
+	 */
+	@Override
+	public long exportOrders(Path path, Iterable<Order> orders) throws IOException {
+		try (Writer out = Channels.newWriter(FileChannel.open(path, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE), StandardCharsets.UTF_8)) {
+			return exportOrders(out, orders, Importer.Format.of(path));
+		}
+	}
+
+	/**
+	 * State of one export: buffer, line count and running grand totals.
+	 */
+	private final class Export {
+		final Writer out;
+		final boolean csv;
+		final StringBuilder sb = new StringBuilder(BUFFER_SIZE + 1024);
+		final char[] chars = new char[BUFFER_SIZE + 1024];
+		long lines = 0, orders = 0;
+
+		/**
+		 * Totals of the current order by currency ordinal, last slot for items
+		 * without currency, and grand totals in EUR.
+		 */
+		final long[] values = new long[currencies.length + 1];
+		final long[] vats = new long[currencies.length + 1];
+		long totalValue = 0L, totalVAT = 0L;
+
+		Export(Writer out, boolean csv) {
+			this.out = out;
+			this.csv = csv;
+		}
+
+		void order(Order order) throws IOException {
+			final Customer customer = order.getCustomer();
+			final String name = formatter.fmtName(customer, 0);
+			final String created = formatter.fmtDate(order.getCreationDate(), 0, "");
+			Arrays.fill(values, 0L);
+			Arrays.fill(vats, 0L);
+			if (!csv) {
+				sb.append("{\"type\":\"order\",\"id\":");
+				json(order.getId()).append(",\"customerId\":").append(customer.getId()).append(",\"customer\":");
+				json(name).append(",\"created\":");
+				json(created).append(",\"items\":[");
+			}
+			boolean first = true;
+			for (OrderItem item : order.getItemsSnapshot()) {
+				final Article article = item.getArticle();
+				final int units = item.getUnitsOrdered();
+				final long price = article.getUnitPrice() * units;
+				final long itemVAT = calculator.calculateIncludedVAT(price, article.getTax());
+				final Currency currency = article.getCurrency();
+				final int c = currency != null ? currency.ordinal() : currencies.length;
+				values[c] += price;
+				vats[c] += itemVAT;
+				if (csv) {
+					prefix("item", order, customer, name, created);
+					csv(article.getId()).append(',');
+					csv(article.getDescription()).append(',').append(units).append(',').append(article.getUnitPrice())
+							.append(',').append(price).append(',').append(itemVAT).append(',');
+					csv(name(article.getTax())).append(',');
+					csv(name(currency));
+					endLine();
+				} else {
+					sb.append(first ? "{\"article\":" : ",{\"article\":");
+					json(article.getId()).append(",\"description\":");
+					json(article.getDescription()).append(",\"units\":").append(units).append(",\"unitPrice\":")
+							.append(article.getUnitPrice()).append(",\"price\":").append(price).append(",\"vat\":")
+							.append(itemVAT).append(",\"tax\":");
+					json(name(article.getTax())).append(",\"currency\":");
+					json(name(currency)).append('}');
+				}
+				first = false;
+			}
+			// order totals converted into EUR, totals of items without currency are
+			// added unconverted
+			long value = values[currencies.length], vat = vats[currencies.length];
+			for (Currency currency : currencies) {
+				value += convert(values[currency.ordinal()], currency);
+				vat += convert(vats[currency.ordinal()], currency);
+			}
+			totalValue += value;
+			totalVAT += vat;
+			if (csv) {
+				prefix("order", order, customer, name, created);
+				sb.append(",,,,").append(value).append(',').append(vat).append(",,EUR");
+			} else {
+				sb.append("],\"price\":").append(value).append(",\"vat\":").append(vat)
+						.append(",\"currency\":\"EUR\"}");
+			}
+			endLine();
+			orders++;
+		}
+
+		/**
+		 * Append grand totals in EUR.
+		 */
+		void total() throws IOException {
+			if (csv) {
+				sb.append("total,,,,,,,,,").append(totalValue).append(',').append(totalVAT).append(",,EUR");
+			} else {
+				sb.append("{\"type\":\"total\",\"orders\":").append(orders).append(",\"price\":")
+						.append(totalValue).append(",\"vat\":").append(totalVAT).append(",\"currency\":\"EUR\"}");
+			}
+			endLine();
+		}
+
+		private long convert(long value, Currency currency) {
+			return currency == Currency.EUR || value == 0L ? value : calculator.convert(value, currency, Currency.EUR);
+		}
+
+		private void prefix(String type, Order order, Customer customer, String name, String created) {
+			sb.append(type).append(',');
+			csv(order.getId()).append(',').append(customer.getId()).append(',');
+			csv(name).append(',');
+			csv(created).append(',');
+		}
+
+		/**
+		 * Append CSV field, quoted if it contains separators, quotes or line
+		 * breaks. Null is appended as empty field.
+		 */
+		private StringBuilder csv(String field) {
+			if (field == null)
+				return sb;
+			boolean quote = false;
+			for (int i = 0; i < field.length() && !quote; i++) {
+				final char c = field.charAt(i);
+				quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+			}
+			if (!quote)
+				return sb.append(field);
+			sb.append('"');
+			for (int i = 0; i < field.length(); i++) {
+				final char c = field.charAt(i);
+				if (c == '"') {
+					sb.append('"');
+				}
+				sb.append(c);
+			}
+			return sb.append('"');
+		}
+
+		/**
+		 * Append JSON string, null is appended as null.
+		 */
+		private StringBuilder json(String text) {
+			if (text == null)
+				return sb.append("null");
+			sb.append('"');
+			for (int i = 0; i < text.length(); i++) {
+				final char c = text.charAt(i);
+				if (c == '"' || c == '\\') {
+					sb.append('\\').append(c);
+				} else if (c < 0x20) {
+					sb.append(String.format("\\u%04x", (int) c));
+				} else {
+					sb.append(c);
+				}
+			}
+			return sb.append('"');
+		}
+
+		void endLine() throws IOException {
+			sb.append('\n');
+			lines++;
+			if (sb.length() >= BUFFER_SIZE) {
+				flush();
+			}
+		}
+
+		/**
+		 * Write buffered characters to the destination.
+		 */
+		void flush() throws IOException {
+			for (int i = 0, n = sb.length(); i < n; i += chars.length) {
+				final int k = Math.min(chars.length, n - i);
+				sb.getChars(i, i + k, chars, 0);
+				out.write(chars, 0, k);
+			}
+			sb.setLength(0);
+		}
+	}
+
+	private static String name(TAX tax) {
+		return tax != null ? tax.name() : null;
+	}
+
+	private static String name(Currency currency) {
+		return currency != null ? currency.name() : null;
+	}
+}
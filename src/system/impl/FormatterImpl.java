@@ -1,11 +1,16 @@
 package system.impl;
 
-import java.text.DateFormat;
-import java.text.SimpleDateFormat;
+import java.text.DecimalFormatSymbols;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.FormatStyle;
 import java.util.Locale;
 import java.util.Map;
 
 import datamodel.Currency;
+import datamodel.Customer;
 import system.Formatter;
 
 /**
@@ -34,6 +39,13 @@ class FormatterImpl implements Formatter {
 	 */
 	final String EUR = CurrencySymbol.get(Currency.EUR);
 
+	/**
+	 * USD, GBP and YEN currency symbols.
+	 */
+	final String USD = CurrencySymbol.get(Currency.USD);
+	final String GBP = CurrencySymbol.get(Currency.GBP);
+	final String YEN = CurrencySymbol.get(Currency.YEN);
+
 	/**
 	 * Format Customer name according to a style (0 is default):
 	 * 
@@ -55,60 +67,202 @@ class FormatterImpl implements Formatter {
 	@Override
 	public String fmtName(final String firstName, final String lastName, final int... style) {
 		final int st = style.length > 0 ? style[0] : 0; // 0 is default format
-		String fn = firstName != null ? firstName : "";
-		String ln = lastName != null ? lastName : "";
-		fn = (st == 1 || st == 3) ? fmtName(fn, "", 21) : fn; // firstName -> "E."
-		ln = (st == 4) ? fmtName("", ln, 22) : ln; // lastName -> "M."
-		//
-		return (st >= 10) ? ((st >= 10 && st < 20) ? fmtName(firstName, lastName, st - 10).toUpperCase()
-				: (st == 20) ? fmtName(firstName, "", 21) + fmtName("", lastName, 22)
-						: (st == 21) ? fn.length() > 0 ? String.format("%s.", fn.substring(0, 1).toUpperCase()) : ""
-								: (st == 22)
-										? ln.length() > 0 ? String.format("%s.", ln.substring(0, 1).toUpperCase()) : ""
-										: "" // return as default for: st > 22
-		)
-				: ((fn.length() > 0 && ln.length() > 0) ? ((st >= 0 && st <= 1) ? String.format("%s, %s", ln, fn)
-						: (st >= 2 && st <= 4) ? String.format("%s %s", fn, ln)
-								: (st == 5) ? fn : (st == 6) ? ln : fmtName(fn, ln) // return default name style
-				) : fn + ln); // fn or ln (or both) are ""
+		return fmtName(new StringBuilder(24), firstName, lastName, st).toString();
+	}
+
+	/**
+	 * Format Customer name according to a style (0 is default, see
+	 * {@link #fmtName(String, String, int...)}) into a StringBuilder.
+	 * 
+	 * @param sb        StringBuilder to append formatted name to.
+	 * @param firstName first name, may be null or "".
+	 * @param lastName  last name, may be null or "".
+	 * @param style     name formatting style.
+	 * @return StringBuilder with appended name (same sb).
+	 */
+	@Override
+	public StringBuilder fmtName(final StringBuilder sb, final String firstName, final String lastName,
+			final int style) {
+		final NamePlan plan = style < 0 ? NamePlans[0] : style < NamePlans.length ? NamePlans[style] : NoName;
+		final String fn = firstName != null ? firstName : "";
+		final String ln = lastName != null ? lastName : "";
+		final boolean f = plan.first != NONE && fn.length() > 0; // first name part is not ""
+		final boolean l = plan.last != NONE && ln.length() > 0; // last name part is not ""
+		final int start = sb.length();
+		if (plan.layout == CONCAT || !f || !l) {
+			// fn or ln (or both) are "": concatenate parts
+			appendPart(sb, fn, f ? plan.first : NONE);
+			appendPart(sb, ln, l ? plan.last : NONE);
+		} else if (plan.layout == LAST_FIRST) {
+			appendPart(sb, ln, plan.last);
+			appendPart(sb.append(", "), fn, plan.first);
+		} else if (plan.layout == FIRST_LAST) {
+			appendPart(sb, fn, plan.first);
+			appendPart(sb.append(' '), ln, plan.last);
+		} else {
+			appendPart(sb, plan.layout == FIRST ? fn : ln, FULL);
+		}
+		if (plan.upper) {
+			final String upper = sb.substring(start).toUpperCase();
+			sb.setLength(start);
+			sb.append(upper);
+		}
+		return sb;
 	}
 
 	/**
-	 * DateFormatter for date formats.
+	 * Format name of Customer according to a style (0 is default, see
+	 * {@link #fmtName(String, String, int...)}). Formatted names are cached by the
+	 * Customer object until its name changes.
+	 * 
+	 * @param customer customer whose name is formatted.
+	 * @param style    name formatting style.
+	 * @return formatted name according to style.
+	 */
+	@Override
+	public String fmtName(final Customer customer, final int... style) {
+		final int st = style.length > 0 ? style[0] : 0; // 0 is default format
+		return customer.getFormattedName(st, nameRenderer);
+	}
+
+	/**
+	 * Renderer that formats names not cached by Customer objects.
+	 */
+	private final Customer.NameRenderer nameRenderer = this::fmtName;
+
+	/**
+	 * Name parts: full part, initial ("E.") or omitted part.
+	 */
+	private static final int FULL = 0, INITIAL = 1, NONE = 2;
+
+	/**
+	 * Name layouts: "last, first", "first last", first only, last only or
+	 * concatenated parts.
+	 */
+	private static final int LAST_FIRST = 0, FIRST_LAST = 1, FIRST = 2, LAST = 3, CONCAT = 4;
+
+	/**
+	 * Precompiled plan of a name style: how first and last name parts are
+	 * rendered, their layout and upper case conversion.
+	 */
+	private static final class NamePlan {
+		final int first;
+		final int last;
+		final int layout;
+		final boolean upper;
+
+		NamePlan(int first, int last, int layout, boolean upper) {
+			this.first = first;
+			this.last = last;
+			this.layout = layout;
+			this.upper = upper;
+		}
+
+		NamePlan upper() {
+			return new NamePlan(first, last, layout, true);
+		}
+	}
+
+	/**
+	 * Plan of styles {@code > 22} that render "".
+	 */
+	private static final NamePlan NoName = new NamePlan(NONE, NONE, CONCAT, false);
+
+	/**
+	 * Plans resolved once for name styles 0 to 22, negative styles use the default
+	 * style 0.
+	 */
+	private static final NamePlan[] NamePlans = namePlans();
+
+	private static NamePlan[] namePlans() {
+		final NamePlan[] plans = new NamePlan[23];
+		plans[0] = new NamePlan(FULL, FULL, LAST_FIRST, false); // "Meyer, Eric"
+		plans[1] = new NamePlan(INITIAL, FULL, LAST_FIRST, false); // "Meyer, E."
+		plans[2] = new NamePlan(FULL, FULL, FIRST_LAST, false); // "Eric Meyer"
+		plans[3] = new NamePlan(INITIAL, FULL, FIRST_LAST, false); // "E. Meyer"
+		plans[4] = new NamePlan(FULL, INITIAL, FIRST_LAST, false); // "Eric M."
+		plans[5] = new NamePlan(FULL, FULL, FIRST, false); // "Eric"
+		plans[6] = new NamePlan(FULL, FULL, LAST, false); // "Meyer"
+		for (int st = 7; st < 10; st++) {
+			plans[st] = plans[0]; // default style
+		}
+		for (int st = 10; st < 20; st++) {
+			plans[st] = plans[st - 10].upper(); // "MEYER, ERIC"
+		}
+		plans[20] = new NamePlan(INITIAL, INITIAL, CONCAT, false); // "E.M."
+		plans[21] = new NamePlan(INITIAL, NONE, CONCAT, false); // "E."
+		plans[22] = new NamePlan(NONE, INITIAL, CONCAT, false); // "M."
+		return plans;
+	}
+
+	/**
+	 * Append name part, initials are upper case letters followed by ".".
+	 */
+	private static void appendPart(final StringBuilder sb, final String part, final int mode) {
+		if (mode == FULL) {
+			sb.append(part);
+		} else if (mode == INITIAL) {
+			final char c = part.charAt(0);
+			if (c >= 'A' && c <= 'Z') {
+				sb.append(c);
+			} else {
+				sb.append(part.substring(0, 1).toUpperCase());
+			}
+			sb.append('.');
+		}
+	}
+
+	/**
+	 * Time zone in which dates are formatted.
+	 */
+	private static final ZoneId zone = ZoneId.systemDefault();
+
+	/**
+	 * Immutable, thread-safe formatters for date formats.
 	 */
-	private static final DateFormat[] dateFmts = { new SimpleDateFormat("yyyy-MM-dd HH:mm:ss"), // 0: 2022-05-17
-			// 18:55:43
-			new SimpleDateFormat("dd-MM-yyyy HH:mm:ss"), // 1: 17-05-2022 18:55:43
+	private static final DateTimeFormatter[] dateFmts = { DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"), // 0:
+			// 2022-05-17 18:55:43
+			DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm:ss"), // 1: 17-05-2022 18:55:43
 			null, // 2: 1652823817740, as long-String
 //
-			new SimpleDateFormat("yyyy-MM-dd"), // 3: 2022-05-17
-			new SimpleDateFormat("dd-MM-yyyy"), // 4: 17-05-2022
-			new SimpleDateFormat("MM/dd/yy", Locale.US), // 5: 05/17/22
-			new SimpleDateFormat("MM/dd/yyyy", Locale.US), // 6: 05/17/2022
-			DateFormat.getDateInstance(DateFormat.MEDIUM, Locale.US), // 7: May 17, 2022
+			DateTimeFormatter.ofPattern("yyyy-MM-dd"), // 3: 2022-05-17
+			DateTimeFormatter.ofPattern("dd-MM-yyyy"), // 4: 17-05-2022
+			DateTimeFormatter.ofPattern("MM/dd/yy", Locale.US), // 5: 05/17/22
+			DateTimeFormatter.ofPattern("MM/dd/yyyy", Locale.US), // 6: 05/17/2022
+			DateTimeFormatter.ofLocalizedDate(FormatStyle.MEDIUM).withLocale(Locale.US), // 7: May 17, 2022
 //
-			DateFormat.getDateInstance(DateFormat.SHORT, Locale.GERMAN), // 8: 17.05.22
-			DateFormat.getDateInstance(DateFormat.MEDIUM, Locale.GERMAN), // 9: 17.05.2022
-			DateFormat.getDateInstance(DateFormat.LONG, Locale.GERMAN), // 10: 17. Mai 2022
-			new SimpleDateFormat("EEE", Locale.GERMAN), // 11: Di
-			new SimpleDateFormat("EEEE", Locale.GERMAN), // 12: Dienstag
-			new SimpleDateFormat("EEEE, 'der' dd. MMM yyyy", Locale.GERMAN), // 13: Dienstag, der 17. Mai 2022
-			new SimpleDateFormat("EEE", Locale.US), // 14: Tue
-			new SimpleDateFormat("EEEE", Locale.US), // 15: Tuesday
-			new SimpleDateFormat("EEE, MMM dd, yyyy", Locale.US), // 16: Tue, May 05, 2022
+			DateTimeFormatter.ofLocalizedDate(FormatStyle.SHORT).withLocale(Locale.GERMAN), // 8: 17.05.22
+			DateTimeFormatter.ofLocalizedDate(FormatStyle.MEDIUM).withLocale(Locale.GERMAN), // 9: 17.05.2022
+			DateTimeFormatter.ofLocalizedDate(FormatStyle.LONG).withLocale(Locale.GERMAN), // 10: 17. Mai 2022
+			DateTimeFormatter.ofPattern("EEE", Locale.GERMAN), // 11: Di
+			DateTimeFormatter.ofPattern("EEEE", Locale.GERMAN), // 12: Dienstag
+			DateTimeFormatter.ofPattern("EEEE, 'der' dd. MMM yyyy", Locale.GERMAN), // 13: Dienstag, der 17. Mai 2022
+			DateTimeFormatter.ofPattern("EEE", Locale.US), // 14: Tue
+			DateTimeFormatter.ofPattern("EEEE", Locale.US), // 15: Tuesday
+			DateTimeFormatter.ofPattern("EEE, MMM dd, yyyy", Locale.US), // 16: Tue, May 05, 2022
 	};
 
 	/**
-	 * DateFormatter for time formats.
+	 * Immutable, thread-safe formatters for time formats.
 	 */
-	private static final DateFormat[] timeFmts = { new SimpleDateFormat("HH:mm:ss"), // 0: 18:55:43
-			new SimpleDateFormat("HH:mm"), // 1: 18:55
-			new SimpleDateFormat("HH:mm:ss.SSS"), // 2: 18:55:43.348
-			new SimpleDateFormat("HH:mm:ss, z"), // 3: 18:55:43, CEST
-			new SimpleDateFormat("HH:mm:ss, Z"), // 4: 18:55:43, +0200
-			new SimpleDateFormat("HH:mm:ss, aa") // 5: 06:55:43 PM
+	private static final DateTimeFormatter[] timeFmts = { DateTimeFormatter.ofPattern("HH:mm:ss"), // 0: 18:55:43
+			DateTimeFormatter.ofPattern("HH:mm"), // 1: 18:55
+			DateTimeFormatter.ofPattern("HH:mm:ss.SSS"), // 2: 18:55:43.348
+			DateTimeFormatter.ofPattern("HH:mm:ss, z"), // 3: 18:55:43, CEST
+			DateTimeFormatter.ofPattern("HH:mm:ss, Z"), // 4: 18:55:43, +0200
+			DateTimeFormatter.ofPattern("HH:mm:ss, a") // 5: 06:55:43 PM
 	};
 
+	/**
+	 * Time style with millisecond resolution, results cannot be cached by second.
+	 */
+	private static final int MILLIS_TIME_STYLE = 2;
+
+	/**
+	 * Shared cache of formatted second-resolution dates.
+	 */
+	private final DateTextCache dateCache = new DateTextCache(1024);
+
 	/**
 	 * Format date/time from long value (64 bit, counted ms since 01/01/1970). Date
 	 * and time styles can be combined, e.g. with dateStyle 4, fill: "at" and
@@ -146,15 +300,47 @@ class FormatterImpl implements Formatter {
 	@Override
 	public String fmtDate(final long datetime, final int dateStyle, final String fill, final int... timeStyle) {
 		int tst = timeStyle.length > 0 ? timeStyle[0] : -1;
-		String datetimeStr = "";
-		DateFormat df = dateStyle >= 0 && dateStyle < dateFmts.length ? dateFmts[dateStyle] : null;
-		datetimeStr = dateStyle == 2 ? Long.toUnsignedString(datetime) : // case 2: return long number as String
-				df == null ? "" : df.format(datetime); // remaining cases
+		if (dateStyle == 2) // case 2: return long number as String
+			return Long.toUnsignedString(datetime);
 		//
-		DateFormat tf = tst >= 0 && tst < timeFmts.length ? timeFmts[tst] : null;
-		if (tf != null && dateStyle > 2) {
+		DateTimeFormatter df = dateStyle >= 0 && dateStyle < dateFmts.length ? dateFmts[dateStyle] : null;
+		DateTimeFormatter tf = tst >= 0 && tst < timeFmts.length && dateStyle > 2 ? timeFmts[tst] : null;
+		if (tf != null && tst == MILLIS_TIME_STYLE)
+			return format(datetime, df, fill, tf); // millisecond resolution is not cached
+		//
+		final long second = Math.floorDiv(datetime, 1000L);
+		final int style = dateStyle * 16 + (tf != null ? tst + 1 : 0);
+		final String fill_ = tf != null ? fill : null; // fill only matters with time
+		final String text = dateCache.get(second, style, fill_);
+		return text != null ? text : dateCache.put(second, style, fill_, format(datetime, df, fill_, tf));
+	}
+
+	/**
+	 * Return hit and miss counts of the cache of formatted dates.
+	 * 
+	 * @return tuple with {hits, misses}.
+	 */
+	@Override
+	public long[] dateCacheStats() {
+		return dateCache.stats();
+	}
+
+	/**
+	 * Format date and optional time with formatters.
+	 * 
+	 * @param datetime date/time 64 bit value, counted ms since 01/01/1970.
+	 * @param df       date formatter, null for empty date.
+	 * @param fill     String filled between date and time (space is default).
+	 * @param tf       time formatter, null for no time.
+	 * @return formatted date/time.
+	 */
+	private static String format(final long datetime, final DateTimeFormatter df, final String fill,
+			final DateTimeFormatter tf) {
+		final ZonedDateTime zdt = Instant.ofEpochMilli(datetime).atZone(zone);
+		String datetimeStr = df == null ? "" : df.format(zdt);
+		if (tf != null) {
 			datetimeStr += fill != null ? fill : " ";
-			datetimeStr += tf.format(datetime);
+			datetimeStr += tf.format(zdt);
 		}
 		return datetimeStr;
 	}
@@ -179,12 +365,26 @@ class FormatterImpl implements Formatter {
 	@Override
 	public String fmtPrice(final long price, final int... style) {
 		final int st = style.length > 0 ? style[0] : 0; // 0 is default format
-		return st == 0 ? fmtDecimal(price, 2)
-				: st == 1 ? fmtDecimal(price, 2, EUR)
-						: st == 2 ? fmtDecimal(price, 2, CurrencySymbol.get(Currency.USD))
-								: st == 3 ? fmtDecimal(price, 2, CurrencySymbol.get(Currency.GBP))
-										: st == 4 ? fmtDecimal(price, 0, CurrencySymbol.get(Currency.YEN))
-												: st == 5 ? fmtDecimal(price, 0) : "";
+		return fmtPrice(new StringBuilder(24), price, st).toString();
+	}
+
+	/**
+	 * Format long value to price according to a style (0 is default) into a
+	 * StringBuilder without intermediate objects.
+	 * 
+	 * @param sb    StringBuilder to append formatted price to.
+	 * @param price long value as price.
+	 * @param style price formatting style.
+	 * @return StringBuilder with appended price (same sb).
+	 */
+	@Override
+	public StringBuilder fmtPrice(final StringBuilder sb, final long price, final int style) {
+		return style == 0 ? fmtDecimal(sb, price, 2, null)
+				: style == 1 ? fmtDecimal(sb, price, 2, EUR)
+						: style == 2 ? fmtDecimal(sb, price, 2, USD)
+								: style == 3 ? fmtDecimal(sb, price, 2, GBP)
+										: style == 4 ? fmtDecimal(sb, price, 0, YEN)
+												: style == 5 ? fmtDecimal(sb, price, 0, null) : sb;
 	}
 
 	/**
@@ -199,26 +399,98 @@ class FormatterImpl implements Formatter {
 	@Override
 	public String fmtDecimal(final long value, final int decimalDigits, final String... unit) {
 		final String unitStr = unit.length > 0 ? unit[0] : null;
-		final Object[][] dec = { { "%,d", 1L }, // no decimal digits: 16,000Y
-				{ "%,d.%01d", 10L }, { "%,d.%02d", 100L }, // double-digit price: 169.99E
-				{ "%,d.%03d", 1000L }, // triple-digit unit: 16.999-
-		};
-		String result;
-		String fmt = (String) dec[decimalDigits][0];
-		if (unitStr != null && unitStr.length() > 0) {
-			fmt += "%s"; // add "%s" to format for unit string
+		return fmtDecimal(new StringBuilder(24), value, decimalDigits, unitStr).toString();
+	}
+
+	/**
+	 * Method to format a long value as decimal with a specified number of digits
+	 * (0 to 3) into a StringBuilder. Integral digits are grouped by the grouping
+	 * separator of the default locale (e.g. "16,999.00"), like format "%,d".
+	 * Digits are written directly without intermediate objects.
+	 * 
+	 * @param sb            StringBuilder to append formatted value to.
+	 * @param value         value to format in decimal format.
+	 * @param decimalDigits number of digits, limited to 0 to 3.
+	 * @param unit          appended unit, null or "" for no unit.
+	 * @return StringBuilder with appended value (same sb).
+	 */
+	@Override
+	public StringBuilder fmtDecimal(final StringBuilder sb, final long value, final int decimalDigits,
+			final String unit) {
+		final int decdigs = Math.max(0, Math.min(3, decimalDigits));
+		final long digs = POW10[decdigs];
+		long neg = value > 0 ? -value : value; // negative magnitude, also covers Long.MIN_VALUE
+		if (value < 0) {
+			sb.append('-');
 		}
-		int decdigs = Math.max(0, Math.min(dec.length - 1, decimalDigits));
-		//
-		if (decdigs == 0) {
-			Object[] args = { value, unitStr };
-			result = String.format(fmt, args);
-		} else {
-			long digs = (long) dec[decdigs][1];
-			long frac = Math.abs(value % digs);
-			Object[] args = { value / digs, frac, unitStr };
-			result = String.format(fmt, args);
+		appendDigits(sb, neg / digs, groupingSeparator(), 1);
+		if (decdigs > 0) {
+			sb.append('.');
+			appendDigits(sb, neg % digs, NUL, decdigs);
+		}
+		if (unit != null) {
+			sb.append(unit);
+		}
+		return sb;
+	}
+
+	/**
+	 * Powers of 10 that fit into a long value.
+	 */
+	private static final long[] POW10 = new long[19];
+	static {
+		POW10[0] = 1L;
+		for (int i = 1; i < POW10.length; i++) {
+			POW10[i] = POW10[i - 1] * 10L;
+		}
+	}
+
+	/**
+	 * Character that marks "no grouping".
+	 */
+	private static final char NUL = 0;
+
+	/**
+	 * Grouping separator of the default format locale, cached with locale.
+	 */
+	private volatile Locale groupingLocale = null;
+	private volatile char groupingSep = ',';
+
+	/**
+	 * Return grouping separator of current default format locale.
+	 * 
+	 * @return grouping separator.
+	 */
+	private char groupingSeparator() {
+		final Locale locale = Locale.getDefault(Locale.Category.FORMAT);
+		if (locale != groupingLocale) {
+			groupingSep = DecimalFormatSymbols.getInstance(locale).getGroupingSeparator();
+			groupingLocale = locale;
+		}
+		return groupingSep;
+	}
+
+	/**
+	 * Append decimal digits of a value given as negative magnitude
+	 * ({@code neg <= 0}), most significant digit first.
+	 * 
+	 * @param sb        StringBuilder to append digits to.
+	 * @param neg       negative magnitude of value.
+	 * @param sep       separator between groups of three digits, NUL for none.
+	 * @param minDigits minimum number of digits, leading digits filled with '0'.
+	 */
+	private static void appendDigits(final StringBuilder sb, final long neg, final char sep, final int minDigits) {
+		int n = 1;
+		while (n < POW10.length && neg <= -POW10[n]) {
+			n++;
+		}
+		n = Math.max(n, minDigits);
+		for (int k = n - 1; k >= 0; k--) {
+			long q = k < POW10.length ? neg / POW10[k] : 0L;
+			sb.append((char) ('0' - (int) (q % 10)));
+			if (sep != NUL && k > 0 && k % 3 == 0) {
+				sb.append(sep);
+			}
 		}
-		return result;
 	}
 }
@@ -0,0 +1,753 @@
+package system.impl;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import datamodel.Article;
+import datamodel.Currency;
+import datamodel.Customer;
+import datamodel.Order;
+import datamodel.TAX;
+import system.DatamodelFactory;
+import system.Importer;
+
+/**
+ * Bulk importer that streams CSV or JSON-lines records into a
+ * {@link DatamodelFactory} on a pipeline of three stages:
+ * <ol>
+ * <li>the calling thread reads the input channel in chunks of
+ * {@link #CHUNK_SIZE} bytes cut at line ends,</li>
+ * <li>worker threads parse and validate the lines of chunks in parallel,</li>
+ * <li>the calling thread creates objects of parsed chunks in the factory, one
+ * chunk after the other in input order, so that records can refer to objects
+ * of earlier lines and factories need not be thread-safe.</li>
+ * </ol>
+ * <p>
+ * The number of chunks in the pipeline is bounded, the input is never held in
+ * memory as a whole. Names and contacts are validated by the workers with
+ * scratch {@link Customer} and {@link Article} objects, references and
+ * duplicate ids are resolved against the factory.
+ * </p>
+ *
+ * @version <code style=
+ *          color:green>{@value application.package_info#Version}</code>
+ * @author <code style=
+ *         color:blue>{@value application.package_info#Author}</code>
+ */
+
+class ImporterImpl implements Importer {
+
+	/**
+	 * Size of chunks read from input, chunks grow for longer lines.
+	 */
+	static final int CHUNK_SIZE = 1 << 20;
+
+	/**
+	 * Maximum number of error messages kept in results.
+	 */
+	static final int MAX_ERRORS = 100;
+
+	/**
+	 * Record types.
+	 */
+	private static final byte CUSTOMER = 1, ARTICLE = 2, ORDER = 3;
+
+	/**
+	 * Factory in which imported objects are created.
+	 */
+	private final DatamodelFactory factory;
+
+	/**
+	 * Number of worker threads that parse chunks.
+	 */
+	private final int threads;
+
+	/**
+	 * Constructor with one worker thread per processor.
+	 *
+	 * @param factory factory in which imported objects are created.
+	 */
+	ImporterImpl(DatamodelFactory factory) {
+		this(factory, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Constructor with number of worker threads.
+	 *
+	 * @param factory factory in which imported objects are created.
+	 * @param threads number of worker threads that parse chunks.
+	 */
+	ImporterImpl(DatamodelFactory factory, int threads) {
+		this.factory = factory;
+		this.threads = Math.max(1, threads);
+	}
+
+	/**
+	 * Import records from file.
+	 *
+	 * @param path   path of import file.
+	 * @param format format of import file.
+	 * @return outcome of the import.
+	 * @throws IOException if the file cannot be read.
+	 */
+	@Override
+	public Result importFile(Path path, Format format) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			return importFrom(channel, format);
+		}
+	}
+
+	/**
+	 * Import records from channel.
+	 *
+	 * @param channel channel with UTF-8 encoded records, not closed.
+	 * @param format  format of records.
+	 * @return outcome of the import.
+	 * @throws IOException if reading from channel fails.
+	 */
+	@Override
+	public Result importFrom(ReadableByteChannel channel, Format format) throws IOException {
+		final long started = System.nanoTime();
+		final ResultImpl result = new ResultImpl();
+		final ExecutorService workers = Executors.newFixedThreadPool(threads, r -> {
+			final Thread t = new Thread(r, "importer");
+			t.setDaemon(true);
+			return t;
+		});
+		final ArrayDeque<Future<Batch>> pipeline = new ArrayDeque<Future<Batch>>();
+		try {
+			byte[] data = new byte[CHUNK_SIZE];
+			int filled = 0;
+			boolean first = true;
+			for (boolean eof = false; !eof;) {
+				final int n = channel.read(ByteBuffer.wrap(data, filled, data.length - filled));
+				eof = n < 0;
+				filled += Math.max(n, 0);
+				if (!eof && filled < data.length)
+					continue;
+				int cut = filled;
+				if (!eof) {
+					while (cut > 0 && data[cut - 1] != '\n') {
+						cut--;
+					}
+					if (cut == 0) { // line longer than chunk
+						data = Arrays.copyOf(data, data.length << 1);
+						continue;
+					}
+				}
+				// hand chunk over to worker, keep the incomplete last line
+				final byte[] chunk = data;
+				final int offset = first && startsWithBOM(chunk, cut) ? 3 : 0, length = cut;
+				data = new byte[Math.max(CHUNK_SIZE, filled - cut)];
+				System.arraycopy(chunk, cut, data, 0, filled - cut);
+				filled -= cut;
+				first = false;
+				pipeline.add(workers.submit(() -> parse(chunk, offset, length, format)));
+				if (pipeline.size() > 2 * threads) {
+					apply(take(pipeline.poll()), result);
+				}
+			}
+			while (!pipeline.isEmpty()) {
+				apply(take(pipeline.poll()), result);
+			}
+		} finally {
+			workers.shutdownNow();
+		}
+		factory.sync();
+		result.millis = (System.nanoTime() - started) / 1_000_000L;
+		return result;
+	}
+
+	/*
+	 * Private methods of the read and apply stages.
+	 */
+
+	private static boolean startsWithBOM(byte[] data, int length) {
+		return length >= 3 && data[0] == (byte) 0xEF && data[1] == (byte) 0xBB && data[2] == (byte) 0xBF;
+	}
+
+	private static Batch take(Future<Batch> future) throws IOException {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("import interrupted.");
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException)
+				throw (RuntimeException) e.getCause();
+			if (e.getCause() instanceof Error)
+				throw (Error) e.getCause();
+			throw new IOException(e.getCause());
+		}
+	}
+
+	/**
+	 * Create objects of parsed rows in the factory.
+	 */
+	private void apply(Batch batch, ResultImpl result) {
+		for (Row row : batch.rows) {
+			final long line = result.lines + row.line + 1;
+			if (row.error != null) {
+				result.reject(line, row.error);
+				continue;
+			}
+			try {
+				switch (row.type) {
+				case CUSTOMER:
+					if (factory.findCustomerById(row.key).isPresent())
+						throw new IllegalArgumentException("duplicate customer id: " + row.key + ".");
+					final Customer customer = factory.createCustomer().setName(row.first, row.last).setId(row.key);
+					for (String contact : row.contacts) {
+						customer.addContact(contact);
+					}
+					result.customers++;
+					break;
+				case ARTICLE:
+					if (factory.findArticleById(row.id).isPresent())
+						throw new IllegalArgumentException("duplicate article id: " + row.id + ".");
+					final Article article = factory.createArticle(row.description, row.price).setId(row.id);
+					if (row.currency != null) {
+						article.setCurrency(row.currency);
+					}
+					if (row.tax != null) {
+						article.setTax(row.tax);
+					}
+					result.articles++;
+					break;
+				case ORDER:
+					final Optional<Customer> owner = factory.findCustomerById(row.key);
+					if (owner.isEmpty())
+						throw new IllegalArgumentException("unknown customer id: " + row.key + ".");
+					if (factory.findOrderById(row.id).isPresent())
+						throw new IllegalArgumentException("duplicate order id: " + row.id + ".");
+					final Article[] articles = new Article[row.articles.length];
+					for (int i = 0; i < articles.length; i++) {
+						final String id = row.articles[i];
+						articles[i] = factory.findArticleById(id)
+								.orElseThrow(() -> new IllegalArgumentException("unknown article id: " + id + "."));
+					}
+					final Order order = factory.createOrder(owner.get()).setId(row.id);
+					if (row.date != null) {
+						order.setCreationDate(row.date);
+					}
+					for (int i = 0; i < articles.length; i++) {
+						order.addItem(articles[i], row.units[i]);
+					}
+					result.orders++;
+					break;
+				}
+			} catch (IllegalArgumentException e) {
+				result.reject(line, message(e));
+			}
+		}
+		result.lines += batch.lines;
+	}
+
+	/*
+	 * Private methods of the parse stage, executed by worker threads.
+	 */
+
+	/**
+	 * Parse and validate lines of chunk.
+	 */
+	private static Batch parse(byte[] data, int offset, int length, Format format) {
+		final Batch batch = new Batch();
+		final List<String> fields = new ArrayList<String>();
+		for (int start = offset; start < length; batch.lines++) {
+			int end = start;
+			while (end < length && data[end] != '\n') {
+				end++;
+			}
+			final int next = end + 1;
+			if (end > start && data[end - 1] == '\r') {
+				end--;
+			}
+			final String line = new String(data, start, end - start, StandardCharsets.UTF_8);
+			start = next;
+			if (line.isBlank() || (format == Format.CSV && line.charAt(0) == '#'))
+				continue;
+			final Row row = new Row(batch.lines);
+			try {
+				if (format == Format.CSV) {
+					csv(row, line, fields);
+				} else {
+					json(row, line);
+				}
+			} catch (RuntimeException e) {
+				row.error = message(e);
+			}
+			batch.rows.add(row);
+		}
+		return batch;
+	}
+
+	private static void csv(Row row, String line, List<String> fields) {
+		split(line, fields);
+		final String type = fields.get(0).toLowerCase();
+		final int n = fields.size();
+		switch (type) {
+		case "customer":
+			if (n < 3)
+				throw new IllegalArgumentException("customer needs id and name.");
+			customer(row, parseLong(fields.get(1), "customer id"), fields.get(2), fields.subList(3, n));
+			break;
+		case "article":
+			if (n < 4)
+				throw new IllegalArgumentException("article needs id, description and price.");
+			article(row, fields.get(1), fields.get(2), parseLong(fields.get(3), "price"), field(fields, 4),
+					field(fields, 5));
+			break;
+		case "order":
+			if (n < 3)
+				throw new IllegalArgumentException("order needs id and customer id.");
+			if (n > 4 && (n - 4) % 2 != 0)
+				throw new IllegalArgumentException("order item needs article id and units.");
+			final int items = Math.max(0, (n - 4) / 2);
+			final String[] articles = new String[items];
+			final int[] units = new int[items];
+			for (int i = 0; i < items; i++) {
+				articles[i] = fields.get(4 + 2 * i);
+				units[i] = units(parseLong(fields.get(5 + 2 * i), "units"));
+			}
+			order(row, fields.get(1), parseLong(fields.get(2), "customer id"), field(fields, 3), articles, units);
+			break;
+		default:
+			throw new IllegalArgumentException("unknown record type: \"" + fields.get(0) + "\".");
+		}
+	}
+
+	/**
+	 * Split CSV line into fields, unquoted fields are trimmed.
+	 */
+	private static void split(String line, List<String> fields) {
+		fields.clear();
+		final StringBuilder sb = new StringBuilder();
+		final int n = line.length();
+		int i = 0;
+		do {
+			sb.setLength(0);
+			while (i < n && line.charAt(i) == ' ') {
+				i++;
+			}
+			if (i < n && line.charAt(i) == '"') {
+				for (i++;; i++) {
+					if (i >= n)
+						throw new IllegalArgumentException("unterminated quote.");
+					final char c = line.charAt(i);
+					if (c == '"') {
+						if (i + 1 < n && line.charAt(i + 1) == '"') {
+							sb.append('"');
+							i++;
+						} else {
+							break;
+						}
+					} else {
+						sb.append(c);
+					}
+				}
+				for (i++; i < n && line.charAt(i) != ','; i++) {
+					if (line.charAt(i) != ' ')
+						throw new IllegalArgumentException("text after quote.");
+				}
+				fields.add(sb.toString());
+			} else {
+				final int start = i;
+				while (i < n && line.charAt(i) != ',') {
+					i++;
+				}
+				fields.add(line.substring(start, i).trim());
+			}
+		} while (i++ < n);
+	}
+
+	private static String field(List<String> fields, int i) {
+		return i < fields.size() && !fields.get(i).isEmpty() ? fields.get(i) : null;
+	}
+
+	private static void json(Row row, String line) {
+		final Map<String, Object> record = new JsonReader(line).record();
+		final Object type = record.get("type");
+		if ("customer".equals(type)) {
+			final List<String> contacts = new ArrayList<String>();
+			for (Object contact : list(record.get("contacts"), "contacts")) {
+				contacts.add(text(contact, "contact"));
+			}
+			customer(row, number(record.get("id"), "customer id"), text(record.get("name"), "name"), contacts);
+		} else if ("article".equals(type)) {
+			article(row, text(record.get("id"), "article id"), text(record.get("description"), "description"),
+					number(record.get("price"), "price"), text(record.get("currency"), null),
+					text(record.get("tax"), null));
+		} else if ("order".equals(type)) {
+			final List<Object> items = list(record.get("items"), "items");
+			final String[] articles = new String[items.size()];
+			final int[] units = new int[items.size()];
+			for (int i = 0; i < articles.length; i++) {
+				if (!(items.get(i) instanceof Map))
+					throw new IllegalArgumentException("order item is not an object.");
+				final Map<?, ?> item = (Map<?, ?>) items.get(i);
+				articles[i] = text(item.get("article"), "article id");
+				units[i] = units(number(item.get("units"), "units"));
+			}
+			order(row, text(record.get("id"), "order id"), number(record.get("customer"), "customer id"),
+					text(record.get("date"), null), articles, units);
+		} else {
+			throw new IllegalArgumentException("unknown record type: \"" + type + "\".");
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static List<Object> list(Object value, String what) {
+		if (value == null)
+			return List.of();
+		if (!(value instanceof List))
+			throw new IllegalArgumentException(what + " is not an array.");
+		return (List<Object>) value;
+	}
+
+	/**
+	 * Return JSON string or number as text, null values are rejected if what is
+	 * not null.
+	 */
+	private static String text(Object value, String what) {
+		if (value == null && what != null)
+			throw new IllegalArgumentException(what + " missing.");
+		return value != null ? value.toString() : null;
+	}
+
+	private static long number(Object value, String what) {
+		if (value instanceof Long)
+			return (Long) value;
+		return parseLong(text(value, what), what);
+	}
+
+	private static long parseLong(String text, String what) {
+		try {
+			return Long.parseLong(text);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("invalid " + what + ": \"" + text + "\".");
+		}
+	}
+
+	/**
+	 * Return units as int, units outside the int range are rejected instead of
+	 * being truncated.
+	 */
+	private static int units(long units) {
+		try {
+			return Math.toIntExact(units);
+		} catch (ArithmeticException e) {
+			throw new IllegalArgumentException("invalid units: " + units + ".");
+		}
+	}
+
+	/*
+	 * Validation of records with the rules of the datamodel classes.
+	 */
+
+	private static void customer(Row row, long id, String name, List<String> contacts) {
+		final Customer scratch = new Customer(name).setId(id);
+		for (String contact : contacts) {
+			if (!contact.isEmpty()) {
+				scratch.addContact(contact);
+			}
+		}
+		row.type = CUSTOMER;
+		row.key = id;
+		row.first = scratch.getFirstName();
+		row.last = scratch.getLastName();
+		row.contacts = scratch.getContacts();
+	}
+
+	private static void article(Row row, String id, String description, long price, String currency, String tax) {
+		if (id.isEmpty())
+			throw new IllegalArgumentException("invalid id (empty).");
+		if (description.isEmpty())
+			throw new IllegalArgumentException("description empty");
+		new Article(description, price).setId(id);
+		row.type = ARTICLE;
+		row.id = id;
+		row.description = description;
+		row.price = price;
+		row.currency = currency != null ? Currency.valueOf(currency) : null;
+		row.tax = tax != null ? TAX.valueOf(tax) : null;
+	}
+
+	private static void order(Row row, String id, long customerId, String date, String[] articles, int[] units) {
+		if (id.isEmpty())
+			throw new IllegalArgumentException("invalid id (empty).");
+		for (int i = 0; i < units.length; i++) {
+			if (articles[i].isEmpty() || units[i] < 0)
+				throw new IllegalArgumentException("invalid order item: " + articles[i] + ", " + units[i] + ".");
+		}
+		row.type = ORDER;
+		row.id = id;
+		row.key = customerId;
+		row.date = date != null ? parseDate(date) : null;
+		row.articles = articles;
+		row.units = units;
+	}
+
+	/**
+	 * Parse epoch milliseconds or ISO-8601 local date-time in the system time
+	 * zone, e.g. "2022-08-14T10:30:00" or "2022-08-14 10:30".
+	 */
+	private static long parseDate(String date) {
+		if (!date.isEmpty() && Character.isDigit(date.charAt(date.length() - 1)) && date.indexOf('-') < 0)
+			return parseLong(date, "date");
+		return LocalDateTime.parse(date.replace(' ', 'T')).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+	}
+
+	private static String message(RuntimeException e) {
+		final String message = e.getMessage();
+		return message != null && !message.isEmpty() ? message : e.toString();
+	}
+
+	/**
+	 * Parsed lines of a chunk.
+	 */
+	private static final class Batch {
+		final List<Row> rows = new ArrayList<Row>();
+		int lines = 0;
+	}
+
+	/**
+	 * Parsed and validated record of one line, or the error of the line.
+	 */
+	private static final class Row {
+		final int line; // line number in chunk, from 0
+		String error = null;
+		byte type;
+		long key; // customer id of customers and orders
+		String id; // article or order id
+		String first, last;
+		String[] contacts;
+		String description;
+		long price;
+		Currency currency;
+		TAX tax;
+		Long date;
+		String[] articles;
+		int[] units;
+
+		Row(int line) {
+			this.line = line;
+		}
+	}
+
+	/**
+	 * Minimal reader of one JSON object per line with String, integer, boolean,
+	 * null, array and object values.
+	 */
+	private static final class JsonReader {
+		private final String s;
+		private int i = 0;
+
+		JsonReader(String s) {
+			this.s = s;
+		}
+
+		Map<String, Object> record() {
+			final Object value = value();
+			skip();
+			if (!(value instanceof Map) || i < s.length())
+				throw new IllegalArgumentException("line is not one JSON object.");
+			@SuppressWarnings("unchecked")
+			final Map<String, Object> record = (Map<String, Object>) value;
+			return record;
+		}
+
+		private Object value() {
+			skip();
+			if (i >= s.length())
+				throw error();
+			final char c = s.charAt(i);
+			switch (c) {
+			case '{':
+				final Map<String, Object> map = new HashMap<String, Object>();
+				i++;
+				if (!next('}')) {
+					do {
+						skip();
+						if (i >= s.length() || s.charAt(i) != '"')
+							throw error();
+						final String key = string();
+						if (!next(':'))
+							throw error();
+						map.put(key, value());
+					} while (next(','));
+					if (!next('}'))
+						throw error();
+				}
+				return map;
+			case '[':
+				final List<Object> list = new ArrayList<Object>();
+				i++;
+				if (!next(']')) {
+					do {
+						list.add(value());
+					} while (next(','));
+					if (!next(']'))
+						throw error();
+				}
+				return list;
+			case '"':
+				return string();
+			default:
+				final int start = i;
+				while (i < s.length() && "{}[],: \t".indexOf(s.charAt(i)) < 0) {
+					i++;
+				}
+				final String token = s.substring(start, i);
+				switch (token) {
+				case "null":
+					return null;
+				case "true":
+					return Boolean.TRUE;
+				case "false":
+					return Boolean.FALSE;
+				default:
+					try {
+						return Long.parseLong(token);
+					} catch (NumberFormatException e) {
+						throw new IllegalArgumentException("invalid JSON number: " + token + ".");
+					}
+				}
+			}
+		}
+
+		private String string() {
+			final StringBuilder sb = new StringBuilder();
+			for (i++; i < s.length(); i++) {
+				char c = s.charAt(i);
+				if (c == '"') {
+					i++;
+					return sb.toString();
+				}
+				if (c == '\\') {
+					if (++i >= s.length())
+						break;
+					c = s.charAt(i);
+					switch (c) {
+					case 'b':
+						c = '\b';
+						break;
+					case 'f':
+						c = '\f';
+						break;
+					case 'n':
+						c = '\n';
+						break;
+					case 'r':
+						c = '\r';
+						break;
+					case 't':
+						c = '\t';
+						break;
+					case 'u':
+						if (i + 4 >= s.length())
+							throw error();
+						c = (char) Integer.parseInt(s.substring(i + 1, i + 5), 16);
+						i += 4;
+						break;
+					}
+				}
+				sb.append(c);
+			}
+			throw new IllegalArgumentException("unterminated JSON string.");
+		}
+
+		private boolean next(char c) {
+			skip();
+			if (i < s.length() && s.charAt(i) == c) {
+				i++;
+				return true;
+			}
+			return false;
+		}
+
+		private void skip() {
+			while (i < s.length() && Character.isWhitespace(s.charAt(i))) {
+				i++;
+			}
+		}
+
+		private IllegalArgumentException error() {
+			return new IllegalArgumentException("invalid JSON at column " + (i + 1) + ".");
+		}
+	}
+
+	/**
+	 * Outcome of an import.
+	 */
+	private static final class ResultImpl implements Result {
+		long lines = 0, customers = 0, articles = 0, orders = 0, rejected = 0, millis = 0;
+		final List<String> errors = new ArrayList<String>();
+
+		void reject(long line, String message) {
+			if (rejected++ < MAX_ERRORS) {
+				errors.add("line " + line + ": " + message);
+			}
+		}
+
+		@Override
+		public long getLines() {
+			return lines;
+		}
+
+		@Override
+		public long getCustomers() {
+			return customers;
+		}
+
+		@Override
+		public long getArticles() {
+			return articles;
+		}
+
+		@Override
+		public long getOrders() {
+			return orders;
+		}
+
+		@Override
+		public long getRejected() {
+			return rejected;
+		}
+
+		@Override
+		public List<String> getErrors() {
+			return Collections.unmodifiableList(errors);
+		}
+
+		@Override
+		public long getMillis() {
+			return millis;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%d lines in %d ms: %d customers, %d articles, %d orders, %d rejected", lines,
+					millis, customers, articles, orders, rejected);
+		}
+	}
+}
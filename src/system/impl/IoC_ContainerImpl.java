@@ -3,11 +3,16 @@ package system.impl;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.RoundingMode;
+import java.nio.file.Path;
 import java.util.Properties;
 
 import system.Calculator;
 import system.DatamodelFactory;
 import system.Formatter;
+import system.Exporter;
+import system.Importer;
 import system.IoC;
 import system.OrderBuilder;
 import system.Printer;
@@ -35,19 +40,123 @@ public final class IoC_ContainerImpl implements IoC {
 	private final Calculator calculator;
 	private final Formatter formatter;
 	private final Printer printer;
-	private final DatamodelFactory datamodelfactory;
-	private final OrderBuilder orderbuilder;
+	private final Exporter exporter;
+
+	/**
+	 * DatamodelFactory selected by system properties and the components that
+	 * depend on it, created on first use.
+	 */
+	private DatamodelFactory datamodelfactory = null;
+	private OrderBuilder orderbuilder = null;
+	private Importer importer = null;
 	private final java.util.Properties props = new Properties();
 
+	/**
+	 * Name of the system property that selects the DatamodelFactory
+	 * implementation: {@code "concurrent"} selects the thread-safe implementation,
+	 * {@code "mapped"} the implementation that keeps orders in memory-mapped files
+	 * in a temporary directory, any other value or no value the default
+	 * implementation, e.g. {@code java -Ddatamodel.factory=concurrent ...}.
+	 */
+	public static final String DatamodelFactoryProperty = "datamodel.factory";
+
+	/**
+	 * Name of the system property with the path of the journal file in which
+	 * created objects are recorded and from which they are restored at startup,
+	 * e.g. {@code java -Ddatamodel.journal=data/orders.journal ...}. Objects are
+	 * not journaled without the property.
+	 */
+	public static final String DatamodelJournalProperty = "datamodel.journal";
+
 	/**
 	 * Private constructor to prevent instance creation outside this class.
 	 */
 	private IoC_ContainerImpl() {
-		this.calculator = new CalculatorImpl();
+		this.calculator = new CalculatorImpl(RoundingMode.HALF_UP, props);
 		this.formatter = new FormatterImpl();
 		this.printer = new PrinterImpl(calculator, formatter);
-		this.datamodelfactory = new DatamodelFactoryImpl();
-		this.orderbuilder = new OrderBuilderImpl(datamodelfactory);
+		this.exporter = new ExporterImpl(calculator, formatter);
+	}
+
+	/**
+	 * Create DatamodelFactory selected by system properties, OrderBuilder and
+	 * Importer on first use. A failure is thrown again on the next use, other
+	 * components remain usable.
+	 * 
+	 * @return singleton DatamodelFactory.
+	 * @throws IllegalStateException if the configuration combines a journal with
+	 *                               the mapped DatamodelFactory.
+	 * @throws UncheckedIOException  if files of the DatamodelFactory or the
+	 *                               journal cannot be opened.
+	 */
+	private synchronized DatamodelFactory datamodelFactory() {
+		if (datamodelfactory == null) {
+			final String factory = System.getProperty(DatamodelFactoryProperty, "");
+			final String journal = System.getProperty(DatamodelJournalProperty);
+			if (journal != null && factory.equals("mapped"))
+				throw new IllegalStateException(
+						DatamodelJournalProperty + " is not supported with " + DatamodelFactoryProperty + "=mapped.");
+			final DatamodelFactory created = createDatamodelFactory(factory);
+			if (journal != null) {
+				attachJournal(created, Path.of(journal));
+			}
+			this.orderbuilder = new OrderBuilderImpl(created);
+			this.importer = new ImporterImpl(created);
+			this.datamodelfactory = created;
+		}
+		return datamodelfactory;
+	}
+
+	/**
+	 * Create DatamodelFactory implementation selected by name.
+	 * 
+	 * @param name "concurrent", "mapped" or any other name for the default
+	 *             implementation.
+	 * @return created DatamodelFactory.
+	 * @throws UncheckedIOException if files of the mapped implementation cannot be
+	 *                              created.
+	 */
+	private static DatamodelFactory createDatamodelFactory(String name) {
+		switch (name) {
+		case "concurrent":
+			return new ConcurrentDatamodelFactoryImpl();
+		case "mapped":
+			try {
+				return new MappedDatamodelFactoryImpl();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		default:
+			return new DatamodelFactoryImpl();
+		}
+	}
+
+	/**
+	 * Open journal, restore objects into the DatamodelFactory and attach the
+	 * journal, which is closed when the JVM shuts down.
+	 * 
+	 * @param datamodelfactory DatamodelFactory into which objects are restored.
+	 * @param path             path of journal file.
+	 * @throws UncheckedIOException if journal cannot be opened.
+	 */
+	private static void attachJournal(DatamodelFactory datamodelfactory, Path path) {
+		try {
+			final OrderJournal journal = OrderJournal.open(path, datamodelfactory);
+			if (datamodelfactory instanceof ConcurrentDatamodelFactoryImpl) {
+				((ConcurrentDatamodelFactoryImpl) datamodelfactory).setJournal(journal);
+			} else {
+				((DatamodelFactoryImpl) datamodelfactory).setJournal(journal);
+			}
+			Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+				try {
+					journal.close();
+				} catch (IOException e) {
+					System.err.println("journal: " + e.getMessage());
+				}
+			}));
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
 	}
 
 	/**
@@ -94,13 +203,37 @@ public final class IoC_ContainerImpl implements IoC {
 
 	@Override
 	public DatamodelFactory getDatamodelFactory() {
-		return this.datamodelfactory;
+		return datamodelFactory();
 	}
 
 	@Override
 	public OrderBuilder getOrderBuilder() {
+		datamodelFactory();
 		return this.orderbuilder;
 	}
+
+	/**
+	 * Getter of system singleton component that implements the {@link Importer}
+	 * interface.
+	 * 
+	 * @return reference to singleton Importer instance.
+	 */
+	@Override
+	public Importer getImporter() {
+		datamodelFactory();
+		return this.importer;
+	}
+
+	/**
+	 * Getter of system singleton component that implements the {@link Exporter}
+	 * interface.
+	 * 
+	 * @return reference to singleton Exporter instance.
+	 */
+	@Override
+	public Exporter getExporter() {
+		return this.exporter;
+	}
 	
 	@Override
 	public Properties getProperties() {
@@ -120,6 +253,7 @@ public final class IoC_ContainerImpl implements IoC {
 			// TODO Auto-generated catch block
 			e.printStackTrace();
 		}
+		calculator.reloadCurrencyRates();
 		return count;
 		
 	}
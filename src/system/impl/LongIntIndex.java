@@ -0,0 +1,149 @@
+package system.impl;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash index that maps primitive {@code long} keys to
+ * {@code int} values (e.g. positions in a list) without boxing.
+ * <p>
+ * Collisions are resolved by linear probing, the table is kept at most half
+ * full and grows by doubling. Entries cannot be removed, which matches the
+ * append-only use in factories (ids are immutable once assigned).
+ * {@link Long#MIN_VALUE} is reserved to mark empty slots and cannot be used as
+ * key.
+ * </p>
+ *
+ * @version <code style=
+ *          color:green>{@value application.package_info#Version}</code>
+ * @author <code style=
+ *         color:blue>{@value application.package_info#Author}</code>
+ */
+
+final class LongIntIndex {
+
+	/**
+	 * Key marking an empty slot.
+	 */
+	static final long EMPTY = Long.MIN_VALUE;
+
+	/**
+	 * Value returned by {@link #get(long)} for absent keys.
+	 */
+	static final int ABSENT = -1;
+
+	private long[] keys;
+	private int[] values;
+	private int mask; // table length - 1, table length is a power of two
+	private int size = 0;
+
+	/**
+	 * Constructor with default initial capacity.
+	 */
+	LongIntIndex() {
+		this(16);
+	}
+
+	/**
+	 * Constructor with expected number of entries.
+	 *
+	 * @param expected number of entries the index can hold without growing.
+	 */
+	LongIntIndex(int expected) {
+		int cap = Integer.highestOneBit(Math.max(4, expected) * 2 - 1) << 1;
+		allocate(cap);
+	}
+
+	/**
+	 * Return value mapped from key.
+	 *
+	 * @param key key to look up.
+	 * @return mapped value or {@link #ABSENT}.
+	 */
+	int get(long key) {
+		for (int i = slot(key);; i = (i + 1) & mask) {
+			long k = keys[i];
+			if (k == key)
+				return values[i];
+			if (k == EMPTY)
+				return ABSENT;
+		}
+	}
+
+	/**
+	 * Test whether key is mapped.
+	 *
+	 * @param key key to look up.
+	 * @return true if key is mapped.
+	 */
+	boolean contains(long key) {
+		return get(key) != ABSENT;
+	}
+
+	/**
+	 * Map key to value unless key is already mapped (first mapping wins).
+	 *
+	 * @param key   key, must not be {@link #EMPTY}.
+	 * @param value value {@code >= 0}.
+	 * @return true if the mapping was added, false if key was already mapped.
+	 * @throws IllegalArgumentException if key is {@link #EMPTY}.
+	 */
+	boolean putIfAbsent(long key, int value) {
+		if (key == EMPTY)
+			throw new IllegalArgumentException("invalid key.");
+		//
+		int i = slot(key);
+		for (long k = keys[i]; k != EMPTY; k = keys[i]) {
+			if (k == key)
+				return false;
+			i = (i + 1) & mask;
+		}
+		keys[i] = key;
+		values[i] = value;
+		if (++size * 2 > keys.length) {
+			rehash(keys.length << 1);
+		}
+		return true;
+	}
+
+	/**
+	 * Return number of mapped keys.
+	 *
+	 * @return number of mapped keys.
+	 */
+	int size() {
+		return size;
+	}
+
+	/*
+	 * Private methods.
+	 */
+
+	private int slot(long key) {
+		long h = key * 0x9E3779B97F4A7C15L; // Fibonacci hashing spreads sequential ids
+		return (int) (h ^ (h >>> 32)) & mask;
+	}
+
+	private void allocate(int capacity) {
+		keys = new long[capacity];
+		values = new int[capacity];
+		Arrays.fill(keys, EMPTY);
+		mask = capacity - 1;
+	}
+
+	private void rehash(int capacity) {
+		final long[] oldKeys = keys;
+		final int[] oldValues = values;
+		allocate(capacity);
+		for (int j = 0; j < oldKeys.length; j++) {
+			long k = oldKeys[j];
+			if (k != EMPTY) {
+				int i = slot(k);
+				while (keys[i] != EMPTY) {
+					i = (i + 1) & mask;
+				}
+				keys[i] = k;
+				values[i] = oldValues[j];
+			}
+		}
+	}
+}
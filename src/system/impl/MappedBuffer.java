@@ -0,0 +1,155 @@
+package system.impl;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Growable byte-addressed buffer over a file that is mapped into memory in
+ * segments of {@link #SEGMENT_SIZE} bytes ({@link FileChannel#map}).
+ * <p>
+ * Segments are mapped when positions beyond the mapped size are accessed, the
+ * file grows accordingly. Contents live in the page cache of the operating
+ * system, not on the JVM heap. {@code int} and {@code long} values must be
+ * aligned to their size, so they never cross segments. Not thread-safe.
+ * </p>
+ *
+ * @version <code style=
+ *          color:green>{@value application.package_info#Version}</code>
+ * @author <code style=
+ *         color:blue>{@value application.package_info#Author}</code>
+ */
+
+final class MappedBuffer implements AutoCloseable {
+
+	/**
+	 * Segment size {@code 1 << SEGMENT_BITS} bytes.
+	 */
+	static final int SEGMENT_BITS = 24;
+	static final int SEGMENT_SIZE = 1 << SEGMENT_BITS;
+	private static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+
+	private final FileChannel channel;
+
+	/**
+	 * Mapped segments in file order.
+	 */
+	private MappedByteBuffer[] segments = new MappedByteBuffer[0];
+
+	/**
+	 * Constructor that creates or truncates the file.
+	 *
+	 * @param file path of mapped file.
+	 * @throws IOException if file cannot be opened.
+	 */
+	MappedBuffer(Path file) throws IOException {
+		this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+				StandardOpenOption.READ, StandardOpenOption.WRITE);
+	}
+
+	int getInt(long pos) {
+		return segment(pos).getInt((int) (pos & SEGMENT_MASK));
+	}
+
+	void putInt(long pos, int value) {
+		segment(pos).putInt((int) (pos & SEGMENT_MASK), value);
+	}
+
+	long getLong(long pos) {
+		return segment(pos).getLong((int) (pos & SEGMENT_MASK));
+	}
+
+	void putLong(long pos, long value) {
+		segment(pos).putLong((int) (pos & SEGMENT_MASK), value);
+	}
+
+	/**
+	 * Write bytes at position, bytes may cross segments.
+	 *
+	 * @param pos   position of first byte.
+	 * @param bytes bytes to write.
+	 */
+	void put(long pos, byte[] bytes) {
+		for (int off = 0; off < bytes.length;) {
+			final int i = (int) (pos & SEGMENT_MASK);
+			final int n = Math.min(bytes.length - off, SEGMENT_SIZE - i);
+			segment(pos).put(i, bytes, off, n);
+			pos += n;
+			off += n;
+		}
+	}
+
+	/**
+	 * Read bytes at position, bytes may cross segments.
+	 *
+	 * @param pos   position of first byte.
+	 * @param bytes array to fill.
+	 * @return filled array (same bytes).
+	 */
+	byte[] get(long pos, byte[] bytes) {
+		for (int off = 0; off < bytes.length;) {
+			final int i = (int) (pos & SEGMENT_MASK);
+			final int n = Math.min(bytes.length - off, SEGMENT_SIZE - i);
+			segment(pos).get(i, bytes, off, n);
+			pos += n;
+			off += n;
+		}
+		return bytes;
+	}
+
+	/**
+	 * Compare bytes at position with bytes without copying.
+	 *
+	 * @param pos   position of first byte.
+	 * @param bytes bytes to compare.
+	 * @return true if all bytes are equal.
+	 */
+	boolean equals(long pos, byte[] bytes) {
+		for (int i = 0; i < bytes.length; i++, pos++) {
+			if (segment(pos).get((int) (pos & SEGMENT_MASK)) != bytes[i])
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Close file, mapped segments are released by the garbage collector.
+	 *
+	 * @throws IOException if closing fails.
+	 */
+	@Override
+	public void close() throws IOException {
+		segments = new MappedByteBuffer[0];
+		channel.close();
+	}
+
+	private MappedByteBuffer segment(long pos) {
+		final int s = (int) (pos >>> SEGMENT_BITS);
+		if (s >= segments.length) {
+			map(s);
+		}
+		return segments[s];
+	}
+
+	/**
+	 * Map segments up to segment s.
+	 */
+	private void map(int s) {
+		final int n = segments.length;
+		segments = Arrays.copyOf(segments, s + 1);
+		try {
+			for (int i = n; i < segments.length; i++) {
+				segments[i] = channel.map(FileChannel.MapMode.READ_WRITE, (long) i << SEGMENT_BITS, SEGMENT_SIZE);
+				segments[i].order(ByteOrder.nativeOrder());
+			}
+		} catch (IOException e) {
+			segments = Arrays.copyOf(segments, n);
+			throw new UncheckedIOException(e);
+		}
+	}
+}
@@ -0,0 +1,900 @@
+package system.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.RandomAccess;
+import java.util.stream.Stream;
+
+import datamodel.Article;
+import datamodel.Customer;
+import datamodel.Order;
+import datamodel.OrderItem;
+import system.DatamodelFactory;
+
+/**
+ * Factory that keeps Order and OrderItem objects in memory-mapped column files
+ * ({@link MappedBuffer}) instead of object graphs on the JVM heap. Customers and
+ * articles remain on the heap as in {@link DatamodelFactoryImpl}.
+ * <p>
+ * Each order is one row of the order columns (customer, creation date, id,
+ * position, number and capacity of items, version of items, next order of the
+ * customer), each item one row of the item columns (article, units, order, next
+ * item of the article). The items of an order are consecutive item rows within
+ * its capacity. The heap only holds an open-addressing index of order ids with
+ * 16 bytes per order. Created orders are written into the columns with the next
+ * operation of the factory, when their attributes have been set.
+ * </p>
+ * <p>
+ * {@link Order} objects are materialized lazily as views of a row by
+ * {@link #findOrderById(String)} and by the lists returned from
+ * {@link #getOrders()} and the other finders, each call returns a new object.
+ * Items added to or removed from created orders or views, changed units and
+ * creation dates are written back. Items are rewritten in place when they fit
+ * into the capacity of the order, otherwise they are moved to new item rows
+ * with twice the capacity and the old rows are dropped from the article chains.
+ * Item columns are compacted when more item rows are dropped than allocated.
+ * Views do not see changes made through other views of the same row: a view
+ * that is behind the row applies its added or removed item to the current items
+ * of the row, so changes of several views are kept, but the view itself is not
+ * refreshed. Changed units or creation dates of a view that is behind the row
+ * replace the items of the row with those of the view. Use a single view per
+ * order to change items. Not thread-safe.
+ * </p>
+ *
+ * @version <code style=
+ *          color:green>{@value application.package_info#Version}</code>
+ * @author <code style=
+ *         color:blue>{@value application.package_info#Author}</code>
+ */
+
+class MappedDatamodelFactoryImpl implements DatamodelFactory, AutoCloseable {
+
+	/**
+	 * Minimum number of dropped item rows that triggers compaction of the item
+	 * columns.
+	 */
+	static final long COMPACT_ROWS = 1L << 12;
+
+	/**
+	 * Customers and articles held on the heap.
+	 */
+	private final DatamodelFactoryImpl heap = new DatamodelFactoryImpl();
+
+	/**
+	 * Directory of column files.
+	 */
+	private final Path directory;
+
+	/**
+	 * Order columns with row sizes 4 (int) or 8 (long) bytes.
+	 */
+	private final MappedBuffer orderCustomer; // int: customer reference
+	private final MappedBuffer orderDate; // long: creation date
+	private final MappedBuffer orderIdPos; // long: position of id in ids, -1 if no id
+	private final MappedBuffer orderIdLength; // int: length of id
+	private final MappedBuffer orderItems; // long: row of first item
+	private final MappedBuffer orderItemsCount; // int: number of items
+	private final MappedBuffer orderItemsCapacity; // int: number of item rows of order
+	private final MappedBuffer orderVersion; // int: incremented when items are written
+	private final MappedBuffer orderNext; // int: next order of customer, -1 at end
+
+	/**
+	 * Item columns.
+	 */
+	private final MappedBuffer itemArticle; // int: article reference, -1 if row is free
+	private final MappedBuffer itemUnits; // int: units ordered
+	private final MappedBuffer itemOrder; // int: order row
+	private final MappedBuffer itemNext; // long: next item of article, -1 at end
+
+	/**
+	 * UTF-8 bytes of order ids.
+	 */
+	private final MappedBuffer ids;
+
+	private int orders = 0;
+	private long items = 0L; // item rows
+	private long allocated = 0L; // item rows within capacities of orders
+	private long idsSize = 0L;
+
+	/**
+	 * Customers and articles referred by orders, rows refer to them by position.
+	 */
+	private final Refs<Customer> customerRefs = new Refs<Customer>();
+	private final Refs<Article> articleRefs = new Refs<Article>();
+
+	/**
+	 * Secondary indexes: customer id mapped to slot of first and last order row
+	 * of the customer, article reference mapped to first and last item row.
+	 */
+	private final LongIntIndex customerSlots = new LongIntIndex();
+	private int[] customerFirst = new int[16];
+	private int[] customerLast = new int[16];
+	private long[] articleFirst = new long[16];
+	private long[] articleLast = new long[16];
+
+	/**
+	 * Number of item rows in the chain of an article and number of them that
+	 * have been dropped, chains are compacted when more than half are dropped.
+	 */
+	private int[] articleItems = new int[16];
+	private int[] articleDropped = new int[16];
+
+	/**
+	 * Open-addressing index of order ids: entries are {@code hash << 32 | row + 1},
+	 * 0 marks empty slots.
+	 */
+	private long[] idTable = new long[1024];
+	private int idCount = 0;
+
+	/**
+	 * Created orders not yet written into the columns.
+	 */
+	private final List<Order> created = new ArrayList<Order>();
+
+	/**
+	 * Orders written without id mapped from their rows, their ids are written
+	 * once assigned.
+	 */
+	private final Map<Integer, Order> unidentified = new HashMap<Integer, Order>();
+
+	/**
+	 * Constructor with column files in a new temporary directory.
+	 *
+	 * @throws IOException if files cannot be created.
+	 */
+	MappedDatamodelFactoryImpl() throws IOException {
+		this(Files.createTempDirectory("orders"));
+	}
+
+	/**
+	 * Constructor with column files in a directory. Existing column files are
+	 * truncated.
+	 *
+	 * @param directory directory of column files, created if it does not exist.
+	 * @throws IOException if files cannot be created.
+	 */
+	MappedDatamodelFactoryImpl(Path directory) throws IOException {
+		this.directory = Files.createDirectories(directory);
+		this.orderCustomer = column("order.customer");
+		this.orderDate = column("order.date");
+		this.orderIdPos = column("order.id");
+		this.orderIdLength = column("order.idlength");
+		this.orderItems = column("order.items");
+		this.orderItemsCount = column("order.itemscount");
+		this.orderItemsCapacity = column("order.itemscapacity");
+		this.orderVersion = column("order.version");
+		this.orderNext = column("order.next");
+		this.itemArticle = column("item.article");
+		this.itemUnits = column("item.units");
+		this.itemOrder = column("item.order");
+		this.itemNext = column("item.next");
+		this.ids = column("order.ids");
+		Arrays.fill(customerFirst, -1);
+		Arrays.fill(articleFirst, -1L);
+	}
+
+	/**
+	 * Customer factory method using default constructor.
+	 *
+	 * @return Customer object created with default constructor.
+	 */
+	public Customer createCustomer() {
+		return heap.createCustomer();
+	}
+
+	/**
+	 * Customer factory method using constructor with name argument.
+	 *
+	 * @param name single-String Customer name, e.g. "Eric Meyer".
+	 * @return Customer object created with constructor with name argument.
+	 */
+	public Customer createCustomer(String name) {
+		return heap.createCustomer(name);
+	}
+
+	/**
+	 * Article factory method using default constructor.
+	 *
+	 * @return Article object created with default constructor.
+	 */
+	public Article createArticle() {
+		return heap.createArticle();
+	}
+
+	/**
+	 * Article factory method using constructor with description and unitPrice
+	 * arguments.
+	 *
+	 * @param description descriptive text for article.
+	 * @param unitPrice   price (in cent) for one unit of the article.
+	 * @return Article object created with constructor with description and
+	 *         unitPrice arguments.
+	 */
+	public Article createArticle(String description, long unitPrice) {
+		return heap.createArticle(description, unitPrice);
+	}
+
+	/**
+	 * Order factory method using constructor with owning customer as argument.
+	 * The order is written into the columns with the next operation of the
+	 * factory.
+	 *
+	 * @param customer owning customer who created the order.
+	 * @return Order object created with constructor with owning customer as
+	 *         argument.
+	 * @throws IllegalArgumentException when customer argument is null or has
+	 *                                  invalid id.
+	 */
+	public Order createOrder(Customer customer) {
+		flush();
+		final Order order = new Order(customer);
+		created.add(order);
+		return order;
+	}
+
+	/**
+	 * Getter method to return created Customer objects.
+	 *
+	 * @return created Customer objects.
+	 */
+	public List<Customer> getCustomers() {
+		return heap.getCustomers();
+	}
+
+	/**
+	 * Getter method to return created Article objects.
+	 *
+	 * @return created Article objects.
+	 */
+	public List<Article> getArticles() {
+		return heap.getArticles();
+	}
+
+	/**
+	 * Getter method to return created Order objects. Each access materializes a
+	 * new view, item changes should be made through a single view per order
+	 * (see class documentation).
+	 *
+	 * @return immutable list of orders created so far that materializes Order
+	 *         objects on access.
+	 */
+	public List<Order> getOrders() {
+		flush();
+		return new Rows(null, orders);
+	}
+
+	/**
+	 * Take point-in-time snapshot of created objects, orders are materialized on
+	 * access.
+	 *
+	 * @return snapshot of created objects.
+	 */
+	public Snapshot snapshot() {
+		final Snapshot snapshot = heap.snapshot();
+		return new SnapshotImpl(snapshot.getCustomers(), snapshot.getArticles(), getOrders());
+	}
+
+	/**
+	 * Save created objects in a compact binary format, orders are materialized
+	 * one at a time.
+	 *
+	 * @param out output stream, not closed.
+	 * @return number of saved objects (customers, articles and orders).
+	 * @throws IOException if writing to output stream fails.
+	 */
+	public int save(OutputStream out) throws IOException {
+		return DatamodelCodec.save(snapshot(), out);
+	}
+
+	/**
+	 * Load objects saved with {@link #save(OutputStream)} and create them in this
+	 * factory.
+	 *
+	 * @param in input stream, not closed.
+	 * @return number of loaded objects (customers, articles and orders).
+	 * @throws IOException if reading from input stream fails or input has an
+	 *                     invalid format.
+	 */
+	public int load(InputStream in) throws IOException {
+		final int count = DatamodelCodec.load(this, in);
+		flush();
+		return count;
+	}
+
+	/**
+	 * Write created orders into the columns. Column files are not durable, the
+	 * method does not force them to disk.
+	 */
+	public void sync() {
+		flush();
+	}
+
+	/**
+	 * Return number of created Customer objects.
+	 *
+	 * @return number of created Customer objects.
+	 */
+	public int customersCount() {
+		return heap.customersCount();
+	}
+
+	/**
+	 * Return number of created Article objects.
+	 *
+	 * @return number of created Article objects.
+	 */
+	public int articlesCount() {
+		return heap.articlesCount();
+	}
+
+	/**
+	 * Find a created Customer object by its id.
+	 *
+	 * @param id customer id.
+	 * @return Optional with found object or empty Optional.
+	 */
+	public Optional<Customer> findCustomerById(long id) {
+		return heap.findCustomerById(id);
+	}
+
+	/**
+	 * Find a created Article object by its id.
+	 *
+	 * @param id article id.
+	 * @return Optional with found object or empty Optional.
+	 */
+	public Optional<Article> findArticleById(String id) {
+		return heap.findArticleById(id);
+	}
+
+	/**
+	 * Find a created Order object by its id. Each call materializes a new view,
+	 * item changes should be made through a single view per order (see class
+	 * documentation).
+	 *
+	 * @param id order id.
+	 * @return Optional with new Order object materialized from the columns or
+	 *         empty Optional.
+	 */
+	public Optional<Order> findOrderById(String id) {
+		flush();
+		final int row = id != null ? findRow(id) : -1;
+		return row >= 0 ? Optional.of(order(row)) : Optional.empty();
+	}
+
+	/**
+	 * Find all created Order objects owned by a customer.
+	 *
+	 * @param customerId customer id.
+	 * @return orders of customer in order of creation, empty list if none.
+	 */
+	public List<Order> findOrdersByCustomerId(long customerId) {
+		flush();
+		final int slot = customerSlots.get(customerId);
+		if (slot == LongIntIndex.ABSENT)
+			return List.of();
+		int[] rows = new int[8];
+		int n = 0;
+		for (int row = customerFirst[slot]; row >= 0; row = orderNext.getInt(4L * row)) {
+			if (n == rows.length) {
+				rows = Arrays.copyOf(rows, n << 1);
+			}
+			rows[n++] = row;
+		}
+		return new Rows(rows, n);
+	}
+
+	/**
+	 * Find all created Order objects with items of an article.
+	 *
+	 * @param articleId article id.
+	 * @return orders that contain article, empty list if none.
+	 */
+	public List<Order> findOrdersByArticleId(String articleId) {
+		flush();
+		final Integer ref = findArticleById(articleId).map(articleRefs::find).orElse(null);
+		if (ref == null)
+			return List.of();
+		final BitSet found = new BitSet();
+		int[] rows = new int[8];
+		int n = 0;
+		for (long item = articleFirst[ref]; item >= 0; item = itemNext.getLong(8L * item)) {
+			final int row = itemOrder.getInt(4L * item);
+			if (live(item) && !found.get(row)) { // items of an order need not be adjacent in the chain
+				found.set(row);
+				if (n == rows.length) {
+					rows = Arrays.copyOf(rows, n << 1);
+				}
+				rows[n++] = row;
+			}
+		}
+		return new Rows(rows, n);
+	}
+
+	/**
+	 * Return number of created Order objects.
+	 *
+	 * @return number of created Order objects.
+	 */
+	public int ordersCount() {
+		return orders + created.size();
+	}
+
+	/**
+	 * Close column files and delete them with their directory if it is empty.
+	 *
+	 * @throws IOException if files cannot be closed or deleted.
+	 */
+	@Override
+	public void close() throws IOException {
+		for (MappedBuffer column : Arrays.asList(orderCustomer, orderDate, orderIdPos, orderIdLength, orderItems,
+				orderItemsCount, orderItemsCapacity, orderVersion, orderNext, itemArticle, itemUnits, itemOrder,
+				itemNext, ids)) {
+			column.close();
+		}
+		try (Stream<Path> files = Files.list(directory)) {
+			for (Iterator<Path> it = files.iterator(); it.hasNext();) {
+				final String name = it.next().getFileName().toString();
+				if (name.startsWith("order.") || name.startsWith("item.")) {
+					Files.delete(directory.resolve(name));
+				}
+			}
+		}
+		try (Stream<Path> files = Files.list(directory)) {
+			if (files.findAny().isEmpty()) {
+				Files.delete(directory);
+			}
+		}
+	}
+
+	/*
+	 * Private methods to write rows.
+	 */
+
+	private MappedBuffer column(String name) throws IOException {
+		final Path file = directory.resolve(name);
+		file.toFile().deleteOnExit();
+		return new MappedBuffer(file);
+	}
+
+	/**
+	 * Write created orders into the columns and ids assigned meanwhile.
+	 */
+	private void flush() {
+		if (!unidentified.isEmpty()) {
+			unidentified.entrySet().removeIf(e -> {
+				final String id = e.getValue().getId();
+				if (id == null)
+					return false;
+				writeId(e.getKey(), id);
+				return true;
+			});
+		}
+		for (Order order : created) {
+			final int row = orders++;
+			final Customer customer = order.getCustomer();
+			orderCustomer.putInt(4L * row, customerRefs.ref(customer));
+			orderDate.putLong(8L * row, order.getCreationDate());
+			orderNext.putInt(4L * row, -1);
+			orderItems.putLong(8L * row, items);
+			orderItemsCount.putInt(4L * row, 0);
+			orderItemsCapacity.putInt(4L * row, 0);
+			orderVersion.putInt(4L * row, 0);
+			int slot = customerSlots.get(customer.getId());
+			if (slot == LongIntIndex.ABSENT) {
+				customerSlots.putIfAbsent(customer.getId(), slot = customerSlots.size());
+				if (slot == customerFirst.length) {
+					customerFirst = Arrays.copyOf(customerFirst, slot << 1);
+					customerLast = Arrays.copyOf(customerLast, slot << 1);
+				}
+				customerFirst[slot] = row;
+			} else {
+				orderNext.putInt(4L * customerLast[slot], row);
+			}
+			customerLast[slot] = row;
+			if (order.getId() != null) {
+				writeId(row, order.getId());
+			} else {
+				orderIdPos.putLong(8L * row, -1L);
+				unidentified.put(row, order);
+			}
+			writeItems(row, order);
+			order.setListener(new RowListener(row));
+		}
+		created.clear();
+	}
+
+	private void writeId(int row, String id) {
+		final byte[] bytes = id.getBytes(StandardCharsets.UTF_8);
+		final int hash = id.hashCode() * 0x9E3779B9;
+		final boolean duplicate = findRow(id, bytes, hash) >= 0; // the first order wins
+		ids.put(idsSize, bytes);
+		orderIdPos.putLong(8L * row, idsSize);
+		orderIdLength.putInt(4L * row, bytes.length);
+		idsSize += bytes.length;
+		if (duplicate)
+			return;
+		if (++idCount * 2 > idTable.length) {
+			final long[] old = idTable;
+			idTable = new long[old.length << 1];
+			for (long entry : old) {
+				if (entry != 0L) {
+					insert(entry);
+				}
+			}
+		}
+		insert((long) hash << 32 | (row + 1L));
+	}
+
+	private void insert(long entry) {
+		final int mask = idTable.length - 1;
+		int i = (int) (entry >>> 32) & mask;
+		while (idTable[i] != 0L) {
+			i = (i + 1) & mask;
+		}
+		idTable[i] = entry;
+	}
+
+	/**
+	 * Write current items of order into row.
+	 */
+	private void writeItems(int row, Order order) {
+		final OrderItem[] snapshot = order.getItemsSnapshot();
+		final int[] refs = new int[snapshot.length];
+		final int[] units = new int[snapshot.length];
+		for (int j = 0; j < snapshot.length; j++) {
+			refs[j] = articleRefs.ref(snapshot[j].getArticle());
+			units[j] = snapshot[j].getUnitsOrdered();
+		}
+		writeItems(row, refs, units, snapshot.length);
+	}
+
+	/**
+	 * Write current items of row with one item added or removed, removes the
+	 * first item with the same article and units.
+	 */
+	private void mergeItems(int row, OrderItem added, OrderItem removed) {
+		final long from = orderItems.getLong(8L * row);
+		final int count = orderItemsCount.getInt(4L * row);
+		final int[] refs = new int[count + 1];
+		final int[] units = new int[count + 1];
+		int n = 0;
+		int skip = -1;
+		if (removed != null) {
+			final Integer ref = articleRefs.find(removed.getArticle());
+			skip = ref != null ? ref : -1;
+		}
+		for (long i = from, end = from + count; i < end; i++) {
+			refs[n] = itemArticle.getInt(4L * i);
+			units[n] = itemUnits.getInt(4L * i);
+			if (refs[n] == skip && units[n] == removed.getUnitsOrdered()) {
+				skip = -1;
+			} else {
+				n++;
+			}
+		}
+		if (added != null) {
+			refs[n] = articleRefs.ref(added.getArticle());
+			units[n++] = added.getUnitsOrdered();
+		}
+		writeItems(row, refs, units, n);
+	}
+
+	/**
+	 * Write n items into row. Items are written in place if they fit into the
+	 * capacity of the row and each item row holds the same article or is free,
+	 * otherwise they are moved to new item rows. Dropped item rows stay in the
+	 * chains of their articles until the chains are compacted.
+	 */
+	private void writeItems(int row, int[] refs, int[] units, int n) {
+		final long from = orderItems.getLong(8L * row);
+		final int count = orderItemsCount.getInt(4L * row);
+		final int capacity = orderItemsCapacity.getInt(4L * row);
+		boolean fits = n <= capacity;
+		for (int j = 0; fits && j < n; j++) {
+			final int ref = itemArticle.getInt(4L * (from + j));
+			fits = ref == refs[j] || ref < 0;
+		}
+		if (fits) {
+			for (int j = 0; j < n; j++) {
+				final long i = from + j;
+				final int ref = itemArticle.getInt(4L * i);
+				if (ref < 0) {
+					itemArticle.putInt(4L * i, refs[j]);
+					link(i, refs[j]);
+				} else if (j >= count) {
+					articleDropped[ref]--; // dropped row is still linked, it becomes live again
+				}
+				itemUnits.putInt(4L * i, units[j]);
+			}
+			orderItemsCount.putInt(4L * row, n);
+		} else {
+			// new capacity grows geometrically, orders are written first with their size
+			final int grown = n > capacity ? capacity == 0 ? n : n << 1 : capacity;
+			final long first = items;
+			items += grown;
+			allocated += grown - capacity;
+			for (int j = 0; j < grown; j++) {
+				final long i = first + j;
+				itemArticle.putInt(4L * i, j < n ? refs[j] : -1);
+				itemUnits.putInt(4L * i, j < n ? units[j] : 0);
+				itemOrder.putInt(4L * i, row);
+				itemNext.putLong(8L * i, -1L);
+				if (j < n) {
+					link(i, refs[j]);
+				}
+			}
+			orderItems.putLong(8L * row, first);
+			orderItemsCount.putInt(4L * row, n);
+			orderItemsCapacity.putInt(4L * row, grown);
+		}
+		orderVersion.putInt(4L * row, orderVersion.getInt(4L * row) + 1);
+		// rows that were live and are no longer
+		final long dropFrom = fits ? from + n : from;
+		for (long i = dropFrom; i < from + count; i++) {
+			articleDropped[itemArticle.getInt(4L * i)]++;
+		}
+		for (long i = dropFrom; i < from + count; i++) {
+			final int ref = itemArticle.getInt(4L * i);
+			if (ref >= 0 && articleDropped[ref] * 2 > articleItems[ref]) {
+				compact(ref);
+			}
+		}
+		if (items - allocated > Math.max(allocated, COMPACT_ROWS)) {
+			compactItems();
+		}
+	}
+
+	/**
+	 * Link item row at the end of the chain of its article.
+	 */
+	private void link(long i, int ref) {
+		itemNext.putLong(8L * i, -1L);
+		if (ref >= articleFirst.length) {
+			final int n = articleFirst.length;
+			articleFirst = Arrays.copyOf(articleFirst, Math.max(ref + 1, n << 1));
+			articleLast = Arrays.copyOf(articleLast, articleFirst.length);
+			articleItems = Arrays.copyOf(articleItems, articleFirst.length);
+			articleDropped = Arrays.copyOf(articleDropped, articleFirst.length);
+			Arrays.fill(articleFirst, n, articleFirst.length, -1L);
+		}
+		if (articleFirst[ref] < 0) {
+			articleFirst[ref] = i;
+		} else {
+			itemNext.putLong(8L * articleLast[ref], i);
+		}
+		articleLast[ref] = i;
+		articleItems[ref]++;
+	}
+
+	/**
+	 * Unlink dropped item rows from the chain of an article and mark them free,
+	 * the cost is paid by the dropped rows since more than half of the chain is
+	 * dropped.
+	 */
+	private void compact(int ref) {
+		long last = -1L;
+		int n = 0;
+		for (long item = articleFirst[ref]; item >= 0; item = itemNext.getLong(8L * item)) {
+			if (live(item)) {
+				if (last < 0) {
+					articleFirst[ref] = item;
+				} else {
+					itemNext.putLong(8L * last, item);
+				}
+				last = item;
+				n++;
+			} else {
+				itemArticle.putInt(4L * item, -1);
+			}
+		}
+		if (last < 0) {
+			articleFirst[ref] = -1L;
+		} else {
+			itemNext.putLong(8L * last, -1L);
+		}
+		articleLast[ref] = last;
+		articleItems[ref] = n;
+		articleDropped[ref] = 0;
+	}
+
+	/**
+	 * Move the item rows of all orders to the front of the item columns, dropping
+	 * item rows outside their capacities, and rebuild the article chains. The
+	 * cost is paid by the dropped rows since there are more of them than
+	 * allocated rows. Item rows are only moved towards the front, so rows are
+	 * moved before they are overwritten.
+	 */
+	private void compactItems() {
+		long end = 0L;
+		for (long i = 0L; i < items;) {
+			final int row = itemOrder.getInt(4L * i);
+			final int capacity = orderItemsCapacity.getInt(4L * row);
+			if (i != orderItems.getLong(8L * row) || capacity == 0) {
+				i++; // dropped row
+				continue;
+			}
+			final int count = orderItemsCount.getInt(4L * row);
+			for (int j = 0; j < capacity; j++) {
+				itemArticle.putInt(4L * (end + j), j < count ? itemArticle.getInt(4L * (i + j)) : -1);
+				itemUnits.putInt(4L * (end + j), itemUnits.getInt(4L * (i + j)));
+				itemOrder.putInt(4L * (end + j), row);
+			}
+			orderItems.putLong(8L * row, end);
+			end += capacity;
+			i += capacity;
+		}
+		items = end;
+		Arrays.fill(articleFirst, -1L);
+		Arrays.fill(articleItems, 0);
+		Arrays.fill(articleDropped, 0);
+		for (long i = 0L; i < items; i++) {
+			final int ref = itemArticle.getInt(4L * i);
+			if (ref >= 0) {
+				link(i, ref);
+			}
+		}
+	}
+
+	/*
+	 * Private methods to read rows.
+	 */
+
+	/**
+	 * Test whether item row is a current item of its order, items of an order are
+	 * consecutive rows.
+	 */
+	private boolean live(long item) {
+		final int row = itemOrder.getInt(4L * item);
+		final long first = orderItems.getLong(8L * row);
+		return item >= first && item < first + orderItemsCount.getInt(4L * row);
+	}
+
+	private int findRow(String id) {
+		return findRow(id, id.getBytes(StandardCharsets.UTF_8), id.hashCode() * 0x9E3779B9);
+	}
+
+	private int findRow(String id, byte[] bytes, int hash) {
+		final int mask = idTable.length - 1;
+		for (int i = hash & mask;; i = (i + 1) & mask) {
+			final long entry = idTable[i];
+			if (entry == 0L)
+				return -1;
+			final int row = (int) entry - 1;
+			if ((int) (entry >>> 32) == hash && orderIdLength.getInt(4L * row) == bytes.length
+					&& ids.equals(orderIdPos.getLong(8L * row), bytes))
+				return row;
+		}
+	}
+
+	/**
+	 * Materialize Order object of row, orders without id are returned as created.
+	 */
+	private Order order(int row) {
+		final long idPos = orderIdPos.getLong(8L * row);
+		if (idPos < 0) {
+			final Order order = unidentified.get(row);
+			if (order != null)
+				return order;
+		}
+		final Order order = new Order(customerRefs.get(orderCustomer.getInt(4L * row)));
+		if (idPos >= 0) {
+			order.setId(new String(ids.get(idPos, new byte[orderIdLength.getInt(4L * row)]), StandardCharsets.UTF_8));
+		}
+		order.setCreationDate(orderDate.getLong(8L * row));
+		final long first = orderItems.getLong(8L * row);
+		for (long i = first, end = first + orderItemsCount.getInt(4L * row); i < end; i++) {
+			order.addItem(articleRefs.get(itemArticle.getInt(4L * i)), itemUnits.getInt(4L * i));
+		}
+		order.setListener(new RowListener(row));
+		return order;
+	}
+
+	/**
+	 * Listener of created orders and views that writes changed items and creation
+	 * dates back into the columns. A view whose items are still those of the row
+	 * writes its items, a view that is behind the row (another view of the row
+	 * changed items) merges an added or removed item into the current items of
+	 * the row and writes its items on other changes.
+	 */
+	private final class RowListener implements Order.Listener {
+		private final int row;
+		private int version; // version of row items when view last read or wrote them
+
+		RowListener(int row) {
+			this.row = row;
+			this.version = orderVersion.getInt(4L * row);
+		}
+
+		@Override
+		public void changed(Order order) {
+			orderDate.putLong(8L * row, order.getCreationDate());
+			writeItems(row, order);
+			version = orderVersion.getInt(4L * row);
+		}
+
+		@Override
+		public void itemAdded(Order order, OrderItem item) {
+			write(order, item, null);
+		}
+
+		@Override
+		public void itemRemoved(Order order, OrderItem item) {
+			write(order, null, item);
+		}
+
+		private void write(Order order, OrderItem added, OrderItem removed) {
+			if (version == orderVersion.getInt(4L * row)) {
+				writeItems(row, order);
+				version = orderVersion.getInt(4L * row);
+			} else {
+				// the view stays behind the row and merges its next change again
+				mergeItems(row, added, removed);
+			}
+		}
+	}
+
+	/**
+	 * Immutable list of order rows that materializes Order objects on access.
+	 */
+	private final class Rows extends AbstractList<Order> implements RandomAccess {
+		private final int[] rows; // null for rows 0 .. size - 1
+		private final int size;
+
+		Rows(int[] rows, int size) {
+			this.rows = rows;
+			this.size = size;
+		}
+
+		@Override
+		public Order get(int i) {
+			if (i < 0 || i >= size)
+				throw new IndexOutOfBoundsException(i);
+			return order(rows != null ? rows[i] : i);
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+	}
+
+	/**
+	 * Objects referred by rows by their position.
+	 */
+	private static final class Refs<T> {
+		private final Map<T, Integer> index = new IdentityHashMap<T, Integer>();
+		private final List<T> objects = new ArrayList<T>();
+
+		int ref(T object) {
+			Integer ref = index.get(object);
+			if (ref == null) {
+				index.put(object, ref = objects.size());
+				objects.add(object);
+			}
+			return ref;
+		}
+
+		Integer find(T object) {
+			return index.get(object);
+		}
+
+		T get(int ref) {
+			return objects.get(ref);
+		}
+	}
+}
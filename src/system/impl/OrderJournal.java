@@ -0,0 +1,942 @@
+package system.impl;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+import datamodel.Article;
+import datamodel.Currency;
+import datamodel.Customer;
+import datamodel.Order;
+import datamodel.OrderItem;
+import datamodel.TAX;
+import system.DatamodelFactory;
+
+/**
+ * Append-only, memory-mapped journal of objects created by a
+ * {@link DatamodelFactory} and of their changes.
+ * <p>
+ * Factories report created and changed objects ({@link #record(Object)},
+ * {@link #recordItemAdded(Order, OrderItem)}). The state of the object is
+ * captured when it is reported (orders under their own synchronization), the
+ * latest captured state of each object is written as a record in batches
+ * (group commit): a batch is written when {@link #BATCH_SIZE} objects are
+ * pending, by a flusher thread when the oldest pending change is
+ * {@link #BATCH_MILLIS} old or on {@link #sync()}, and forced to disk with one
+ * call for the whole batch. Items added to an order that has been written
+ * before are written as item records ({@code ITEMS}) that only carry the added
+ * items and their index. Records are written into windows of the journal file
+ * mapped with {@link FileChannel#map}. Customers, articles and orders are
+ * numbered separately in the order in which they are first reported, records
+ * refer to customers and articles by their numbers.
+ * </p>
+ * <p>
+ * When the journal exceeds {@link #CHECKPOINT_SIZE} bytes, it is renamed (suffix
+ * ".old") and a new journal of the next generation is started (checkpoint). A
+ * separate thread encodes the current state of the objects numbered so far
+ * into a new snapshot file (suffix ".snapshot"), then the old journal is
+ * deleted. The journal keeps references to the numbered objects, not copies of
+ * their records. Since objects may change while the snapshot is written, the
+ * snapshot may contain changes that are also in the new journal: records are
+ * idempotent, they set the state of an object and item records truncate the
+ * items of the order to their index before adding items. A failed snapshot is
+ * retried with later batches after {@link #RETRY_MILLIS}, the failure is
+ * reported by the next {@link #sync()} or {@link #close()}.
+ * </p>
+ * <p>
+ * At startup the snapshot is loaded and the journals are replayed into the
+ * factory ({@link #open(Path, DatamodelFactory)}), an interrupted checkpoint is
+ * completed. Records carry a checksum over their generation, so torn records
+ * and records of an older generation end the replay.
+ * </p>
+ *
+ * @version <code style=
+ *          color:green>{@value application.package_info#Version}</code>
+ * @author <code style=
+ *         color:blue>{@value application.package_info#Author}</code>
+ */
+
+final class OrderJournal implements AutoCloseable {
+
+	/**
+	 * Number of pending objects that triggers writing a batch.
+	 */
+	static final int BATCH_SIZE = 256;
+
+	/**
+	 * Age in milliseconds of the oldest pending object after which the batch is
+	 * written.
+	 */
+	static final long BATCH_MILLIS = 20L;
+
+	/**
+	 * Journal size in bytes that triggers a checkpoint.
+	 */
+	static final long CHECKPOINT_SIZE = 64L << 20;
+
+	/**
+	 * Time in milliseconds after a failed snapshot before it is retried.
+	 */
+	static final long RETRY_MILLIS = 1000L;
+
+	/**
+	 * Size of mapped windows of the journal file.
+	 */
+	static final int WINDOW_SIZE = 16 << 20;
+
+	/**
+	 * Journal and snapshot file header: magic "SE1J", version, generation.
+	 */
+	static final int MAGIC = 0x5345314A;
+	static final int VERSION = 3;
+	static final int HEADER_SIZE = 16;
+
+	/**
+	 * Record types, index of {@link #kinds} except for item records of orders.
+	 */
+	private static final byte CUSTOMER = 0, ARTICLE = 1, ORDER = 2, ITEMS = 3;
+
+	private static final Currency[] currencies = Currency.values();
+	private static final TAX[] taxes = TAX.values();
+
+	private final Path path;
+	private final Path oldPath;
+	private final Path snapshotPath;
+	private final DatamodelFactory factory;
+	private FileChannel channel;
+
+	/**
+	 * Generation of the journal, records are checksummed with it.
+	 */
+	private long generation;
+
+	/**
+	 * Absolute file position of the next record.
+	 */
+	private long position;
+
+	/**
+	 * Mapped window of the journal file that contains recent writes.
+	 */
+	private MappedByteBuffer window = null;
+	private long windowStart = -1;
+
+	/**
+	 * Objects of each record type in the order of their numbers, the log is
+	 * appended under the journal lock and read by the checkpoint thread through
+	 * point-in-time views.
+	 */
+	@SuppressWarnings("unchecked")
+	private final AppendLog<Object>[] kinds = new AppendLog[] { new AppendLog<Object>(), new AppendLog<Object>(),
+			new AppendLog<Object>() };
+
+	/**
+	 * Numbers of journaled objects within their kind.
+	 */
+	private final Map<Object, Integer> seqs = new IdentityHashMap<Object, Integer>();
+
+	/**
+	 * Captured states of objects pending to be written.
+	 */
+	private final Map<Object, Rec> pending = new IdentityHashMap<Object, Rec>();
+	private long pendingSince = 0L;
+
+	/**
+	 * Reusable checksum of the write and read paths.
+	 */
+	private final CRC32C crc = new CRC32C();
+
+	/**
+	 * Thread that writes batches when they are {@link #BATCH_MILLIS} old and
+	 * thread of a running checkpoint, null if none is running.
+	 */
+	private final Thread flusher = new Thread(this::flushLoop, "order-journal");
+	private Thread checkpointer = null;
+
+	/**
+	 * Set while the snapshot of a checkpoint has not been written (the old
+	 * journal exists), with the time of the next retry after a failure and the
+	 * failure not yet reported.
+	 */
+	private boolean snapshotPending = false;
+	private long retryAt = 0L;
+	private IOException snapshotFailure = null;
+
+	/**
+	 * Set when the journal is closed or failed to write a batch.
+	 */
+	private boolean closed = false;
+	private IOException failure = null;
+
+	private OrderJournal(Path path, DatamodelFactory factory) throws IOException {
+		this.path = path;
+		this.oldPath = path.resolveSibling(path.getFileName() + ".old");
+		this.snapshotPath = path.resolveSibling(path.getFileName() + ".snapshot");
+		this.factory = factory;
+		this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		this.flusher.setDaemon(true);
+	}
+
+	/**
+	 * Open journal, load its snapshot and replay its records into factory.
+	 * Creates journal file if it does not exist.
+	 *
+	 * @param path    path of journal file, the snapshot is kept in a file with
+	 *                suffix ".snapshot".
+	 * @param factory factory into which objects are loaded, usually empty.
+	 * @return opened journal, not yet attached to factory.
+	 * @throws IOException if files cannot be read or written or the snapshot has
+	 *                     an invalid format.
+	 */
+	static OrderJournal open(Path path, DatamodelFactory factory) throws IOException {
+		final OrderJournal journal = new OrderJournal(path, factory);
+		try {
+			journal.recover();
+		} catch (IOException | RuntimeException e) {
+			journal.channel.close();
+			throw e;
+		}
+		journal.flusher.start();
+		return journal;
+	}
+
+	/**
+	 * Report created or changed object, its current state is captured and written
+	 * with the next batch. Orders are captured under their synchronization.
+	 *
+	 * @param object created or changed Customer, Article or Order.
+	 * @throws UncheckedIOException if writing to the journal has failed.
+	 */
+	void record(Object object) {
+		if (object instanceof Order) {
+			synchronized (object) {
+				capture(object);
+			}
+		} else {
+			capture(object);
+		}
+	}
+
+	/**
+	 * Report item added to an order. The item is appended to the pending state of
+	 * the order instead of capturing all items again, items added to an order
+	 * that has been written are written as item record.
+	 *
+	 * @param order order to which item was added.
+	 * @param item  added item.
+	 * @throws UncheckedIOException if writing to the journal has failed.
+	 */
+	void recordItemAdded(Order order, OrderItem item) {
+		synchronized (order) {
+			synchronized (this) {
+				if (closed)
+					return;
+				check();
+				final int article = ref(item.getArticle()); // may write a batch
+				final Rec rec = pending.get(order);
+				final int count = order.itemsCount();
+				if (rec != null && rec.items == count - 1) {
+					rec.putVarLong(article);
+					rec.putVarLong(item.getUnitsOrdered());
+					rec.items++;
+				} else if (rec == null && seqs.containsKey(order)) {
+					final Rec items = new Rec(ITEMS, seqs.get(order));
+					items.putVarLong(count - 1); // index of the first item of the record
+					items.putVarLong(article);
+					items.putVarLong(item.getUnitsOrdered());
+					items.items = count;
+					pend(order, items);
+				} else if (rec == null || rec.items != count) {
+					capture(order);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Write pending objects and force them to disk.
+	 *
+	 * @throws UncheckedIOException if writing to the journal fails or writing the
+	 *                              snapshot of a checkpoint has failed since the
+	 *                              last report, the snapshot is retried.
+	 */
+	synchronized void sync() {
+		try {
+			check();
+			commit();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		final IOException e = snapshotFailure;
+		if (e != null) {
+			snapshotFailure = null;
+			throw new UncheckedIOException("journal checkpoint failed", e);
+		}
+	}
+
+	/**
+	 * Write pending objects, close journal and wait for a running checkpoint.
+	 * The old journal of a checkpoint whose snapshot was not written is kept and
+	 * replayed by the next {@link #open(Path, DatamodelFactory)}.
+	 *
+	 * @throws IOException if writing to the journal fails or writing the snapshot
+	 *                     of a checkpoint has failed since the last report.
+	 */
+	@Override
+	public void close() throws IOException {
+		final Thread running;
+		synchronized (this) {
+			if (closed)
+				return;
+			try {
+				commit();
+			} finally {
+				closed = true;
+				window = null;
+				channel.close();
+				notifyAll();
+			}
+			running = checkpointer;
+		}
+		if (running != null) {
+			try {
+				running.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		synchronized (this) {
+			final IOException e = snapshotFailure;
+			snapshotFailure = null;
+			if (e != null)
+				throw new IOException("journal checkpoint failed", e);
+		}
+	}
+
+	/*
+	 * Private methods of the write path.
+	 */
+
+	/**
+	 * Capture current state of object as pending record, objects referred by an
+	 * order are captured first if they are not yet journaled.
+	 */
+	private synchronized void capture(Object object) {
+		if (closed)
+			return;
+		check();
+		final Rec rec;
+		if (object instanceof Customer) {
+			rec = customerRecord(seq(object), (Customer) object);
+		} else if (object instanceof Article) {
+			rec = articleRecord(seq(object), (Article) object);
+		} else if (object instanceof Order) {
+			final Order o = (Order) object;
+			final OrderItem[] items = o.getItemsSnapshot();
+			final int customer = ref(o.getCustomer()); // referred objects first, may write a batch
+			final int[] articles = new int[items.length];
+			for (int i = 0; i < items.length; i++) {
+				articles[i] = ref(items[i].getArticle());
+			}
+			rec = orderRecord(seq(o), o, customer, items, articles, items.length);
+		} else {
+			return;
+		}
+		pend(object, rec);
+	}
+
+	/**
+	 * Make record the pending state of object, write batch when it is full.
+	 */
+	private void pend(Object object, Rec rec) {
+		if (pending.isEmpty()) {
+			pendingSince = System.nanoTime();
+			notifyAll(); // start flusher timeout
+		}
+		pending.put(object, rec);
+		if (pending.size() >= BATCH_SIZE) {
+			try {
+				commit();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+
+	private static Rec customerRecord(int seq, Customer c) {
+		final Rec rec = new Rec(CUSTOMER, seq);
+		final Long id = c.getId();
+		rec.putVarLong(id != null ? id + 1 : 0);
+		rec.putString(c.getFirstName());
+		rec.putString(c.getLastName());
+		final String[] contacts = c.getContacts();
+		rec.putVarLong(contacts.length);
+		for (String contact : contacts) {
+			rec.putString(contact);
+		}
+		return rec;
+	}
+
+	private static Rec articleRecord(int seq, Article a) {
+		final Rec rec = new Rec(ARTICLE, seq);
+		rec.putString(a.getId());
+		rec.putString(a.getDescription());
+		rec.putVarLong(a.getUnitPrice());
+		rec.putVarLong(a.getCurrency() != null ? a.getCurrency().ordinal() + 1 : 0);
+		rec.putVarLong(a.getTax() != null ? a.getTax().ordinal() + 1 : 0);
+		return rec;
+	}
+
+	/**
+	 * Encode order with the first n items, articles holds the numbers of their
+	 * articles.
+	 */
+	private static Rec orderRecord(int seq, Order o, int customer, OrderItem[] items, int[] articles, int n) {
+		final Rec rec = new Rec(ORDER, seq);
+		rec.putString(o.getId());
+		rec.putVarLong(customer);
+		final long date = o.getCreationDate();
+		rec.putVarLong((date << 1) ^ (date >> 63)); // zig-zag
+		for (int i = 0; i < n; i++) { // {article, units} up to the end of the record
+			rec.putVarLong(articles[i]);
+			rec.putVarLong(items[i].getUnitsOrdered());
+		}
+		rec.items = n;
+		return rec;
+	}
+
+	/**
+	 * Return number of object, new objects are numbered.
+	 */
+	private int seq(Object object) {
+		Integer seq = seqs.get(object);
+		if (seq == null) {
+			seq = kinds[object instanceof Customer ? CUSTOMER : object instanceof Article ? ARTICLE : ORDER]
+					.append(object);
+			seqs.put(object, seq);
+		}
+		return seq;
+	}
+
+	/**
+	 * Return number of customer or article referred by an order, objects that are
+	 * not yet journaled are captured.
+	 */
+	private int ref(Object object) {
+		final Integer seq = seqs.get(object);
+		if (seq != null)
+			return seq;
+		capture(object);
+		return seqs.get(object);
+	}
+
+	private void check() {
+		if (failure != null)
+			throw new UncheckedIOException("journal failed", failure);
+	}
+
+	/**
+	 * Thread that writes pending objects when the oldest is {@link #BATCH_MILLIS}
+	 * old.
+	 */
+	private void flushLoop() {
+		synchronized (this) {
+			try {
+				while (!closed && failure == null) {
+					final long delay = BATCH_MILLIS * 1_000_000L - (System.nanoTime() - pendingSince);
+					if (pending.isEmpty()) {
+						wait();
+					} else if (delay > 0) {
+						wait(delay / 1_000_000L, (int) (delay % 1_000_000L));
+					} else {
+						try {
+							commit();
+						} catch (IOException e) {
+							failure = e;
+						}
+					}
+				}
+			} catch (InterruptedException e) {
+				// journal is closed
+			}
+		}
+	}
+
+	private void commit() throws IOException {
+		if (pending.isEmpty() || closed)
+			return;
+		final List<Rec> batch = new ArrayList<Rec>(pending.values());
+		batch.sort(Comparator.comparingInt((Rec rec) -> rec.type).thenComparingInt(rec -> rec.seq));
+		pending.clear();
+		final long start = position;
+		for (Rec rec : batch) {
+			append(rec.buf, rec.len);
+		}
+		putInt(position, 0); // end marker, overwritten by the next batch
+		force(start);
+		if (checkpointer != null)
+			return;
+		if (snapshotPending) {
+			if (System.currentTimeMillis() >= retryAt) {
+				snapshot(generation); // retry snapshot of the running checkpoint
+			}
+		} else if (position - HEADER_SIZE > CHECKPOINT_SIZE) {
+			checkpoint();
+		}
+	}
+
+	/**
+	 * Append record of n bytes framed by length and checksum.
+	 */
+	private void append(byte[] record, int n) throws IOException {
+		crc.reset();
+		crc.update(longBytes(generation));
+		crc.update(record, 0, n);
+		putInt(position, n);
+		putInt(position + 4, (int) crc.getValue());
+		put(position + 8, record, 0, n);
+		position += 8 + n;
+	}
+
+	private void putInt(long pos, int v) throws IOException {
+		put(pos, new byte[] { (byte) (v >>> 24), (byte) (v >>> 16), (byte) (v >>> 8), (byte) v }, 0, 4);
+	}
+
+	/**
+	 * Write bytes at absolute file position through mapped windows.
+	 */
+	private void put(long pos, byte[] bytes, int off, int n) throws IOException {
+		while (n > 0) {
+			if (window == null || pos < windowStart || pos >= windowStart + WINDOW_SIZE) {
+				if (window != null) {
+					window.force(); // window is left, force its writes
+				}
+				windowStart = pos - pos % WINDOW_SIZE;
+				window = channel.map(FileChannel.MapMode.READ_WRITE, windowStart, WINDOW_SIZE);
+			}
+			final int i = (int) (pos - windowStart);
+			final int k = Math.min(n, WINDOW_SIZE - i);
+			window.put(i, bytes, off, k);
+			pos += k;
+			off += k;
+			n -= k;
+		}
+	}
+
+	/**
+	 * Force writes from file position up to the end marker to disk. Writes in
+	 * windows left before have already been forced.
+	 */
+	private void force(long from) {
+		final long start = Math.max(from, windowStart);
+		window.force((int) (start - windowStart), (int) (position + 4 - start));
+	}
+
+	/**
+	 * Rename journal, start a new journal of the next generation and write the
+	 * snapshot in a separate thread.
+	 */
+	private void checkpoint() throws IOException {
+		window.force();
+		window = null;
+		channel.close();
+		Files.move(path, oldPath, StandardCopyOption.ATOMIC_MOVE);
+		channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+				StandardOpenOption.READ, StandardOpenOption.WRITE);
+		start(generation + 1, HEADER_SIZE);
+		snapshotPending = true;
+		snapshot(generation);
+	}
+
+	/**
+	 * Start thread that writes the snapshot of generation from the objects
+	 * numbered so far. On failure the old journal is kept, the failure is
+	 * reported and the snapshot is retried by a later batch.
+	 */
+	private void snapshot(long snapshotGeneration) {
+		final List<Object>[] objects = views();
+		checkpointer = new Thread(() -> {
+			IOException failed = null;
+			try {
+				writeSnapshot(objects, snapshotGeneration);
+			} catch (IOException e) {
+				failed = e;
+			} catch (RuntimeException e) {
+				failed = new IOException(e);
+			}
+			synchronized (this) {
+				checkpointer = null;
+				if (failed == null) {
+					snapshotPending = false;
+				} else {
+					snapshotFailure = failed;
+					retryAt = System.currentTimeMillis() + RETRY_MILLIS;
+				}
+			}
+		}, "order-journal-checkpoint");
+		checkpointer.setDaemon(true);
+		checkpointer.start();
+	}
+
+	/**
+	 * Return point-in-time views of the numbered objects of each kind.
+	 */
+	@SuppressWarnings("unchecked")
+	private List<Object>[] views() {
+		final List<Object>[] objects = new List[kinds.length];
+		for (int i = 0; i < kinds.length; i++) {
+			objects[i] = kinds[i].view();
+		}
+		return objects;
+	}
+
+	/**
+	 * Encode current state of numbered object for a snapshot of the objects in
+	 * views. Items of an order are cut at the first item whose article is not in
+	 * the views, these items were added after the views were taken and are in the
+	 * journal.
+	 */
+	private Rec snapshotRecord(int type, int seq, Object object, List<Object>[] objects) {
+		switch (type) {
+		case CUSTOMER:
+			return customerRecord(seq, (Customer) object);
+		case ARTICLE:
+			return articleRecord(seq, (Article) object);
+		default:
+			final Order o = (Order) object;
+			final OrderItem[] items = o.getItemsSnapshot();
+			final int[] articles = new int[items.length];
+			final int customer;
+			int n = 0;
+			synchronized (this) { // numbers are assigned under the journal lock
+				customer = seqs.get(o.getCustomer());
+				for (; n < items.length; n++) {
+					final Integer article = seqs.get(items[n].getArticle());
+					if (article == null || article >= objects[ARTICLE].size())
+						break;
+					articles[n] = article;
+				}
+			}
+			return orderRecord(seq, o, customer, items, articles, n);
+		}
+	}
+
+	/**
+	 * Write current state of the objects in views into new snapshot of
+	 * generation, replace snapshot and delete old journal.
+	 */
+	private void writeSnapshot(List<Object>[] objects, long snapshotGeneration) throws IOException {
+		final Path tmp = snapshotPath.resolveSibling(snapshotPath.getFileName() + ".tmp");
+		final byte[] gen = longBytes(snapshotGeneration);
+		final CRC32C sum = new CRC32C();
+		try (FileOutputStream fos = new FileOutputStream(tmp.toFile())) {
+			final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fos, 1 << 16));
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeLong(snapshotGeneration);
+			for (int type = 0; type < objects.length; type++) {
+				final List<Object> kind = objects[type];
+				for (int seq = 0; seq < kind.size(); seq++) {
+					final Rec rec = snapshotRecord(type, seq, kind.get(seq), objects);
+					sum.reset();
+					sum.update(gen);
+					sum.update(rec.buf, 0, rec.len);
+					out.writeInt(rec.len);
+					out.writeInt((int) sum.getValue());
+					out.write(rec.buf, 0, rec.len);
+				}
+			}
+			out.writeInt(0);
+			out.flush();
+			fos.getChannel().force(true);
+		}
+		Files.move(tmp, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		Files.deleteIfExists(oldPath);
+	}
+
+	/**
+	 * Continue journal of generation at file position.
+	 */
+	private void start(long journalGeneration, long journalPosition) throws IOException {
+		generation = journalGeneration;
+		position = journalPosition;
+		putInt(0, MAGIC);
+		putInt(4, VERSION);
+		put(8, longBytes(generation), 0, 8);
+		putInt(position, 0);
+		force(0L);
+	}
+
+	/**
+	 * Growable record buffer of a captured state.
+	 */
+	private static final class Rec {
+		private final byte type;
+		private final int seq;
+		private byte[] buf = new byte[32];
+		private int len = 0;
+		private int items = -1; // number of items of captured order after the record
+
+		Rec(byte type, int seq) {
+			this.type = type;
+			this.seq = seq;
+			buf[len++] = type;
+			putVarLong(seq);
+		}
+
+		private void ensure(int n) {
+			if (buf.length - len < n) {
+				buf = Arrays.copyOf(buf, Math.max(buf.length << 1, len + n));
+			}
+		}
+
+		void putVarLong(long v) {
+			ensure(10);
+			while ((v & ~0x7FL) != 0) {
+				buf[len++] = (byte) ((v & 0x7F) | 0x80);
+				v >>>= 7;
+			}
+			buf[len++] = (byte) v;
+		}
+
+		void putString(String s) {
+			if (s == null) {
+				putVarLong(0);
+				return;
+			}
+			final byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+			putVarLong(bytes.length + 1L);
+			ensure(bytes.length);
+			System.arraycopy(bytes, 0, buf, len, bytes.length);
+			len += bytes.length;
+		}
+	}
+
+	/*
+	 * Private methods of the read path.
+	 */
+
+	/**
+	 * Load snapshot, replay old and current journal, complete an interrupted
+	 * checkpoint and position journal after the last valid record.
+	 */
+	private void recover() throws IOException {
+		long snapshotGeneration = 0L;
+		if (Files.exists(snapshotPath)) {
+			try (FileChannel in = FileChannel.open(snapshotPath, StandardOpenOption.READ)) {
+				snapshotGeneration = generation(in);
+				if (snapshotGeneration < 0)
+					throw new IOException("invalid snapshot (header).");
+				replay(in, snapshotGeneration);
+			}
+		}
+		// old journal of the generation of the snapshot: checkpoint was interrupted
+		boolean interrupted = false;
+		if (Files.exists(oldPath)) {
+			try (FileChannel in = FileChannel.open(oldPath, StandardOpenOption.READ)) {
+				if (generation(in) == snapshotGeneration) {
+					replay(in, snapshotGeneration);
+					interrupted = true;
+				}
+			}
+			if (!interrupted) {
+				Files.delete(oldPath); // snapshot was written, old journal not yet deleted
+			}
+		}
+		final long journalGeneration = interrupted ? snapshotGeneration + 1 : snapshotGeneration;
+		final long journalPosition = generation(channel) == journalGeneration ? replay(channel, journalGeneration)
+				: HEADER_SIZE;
+		if (interrupted) {
+			writeSnapshot(views(), journalGeneration);
+		}
+		start(journalGeneration, journalPosition);
+	}
+
+	/**
+	 * Return generation of journal or snapshot file, -1 if header is invalid.
+	 */
+	private static long generation(FileChannel in) throws IOException {
+		final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		while (header.hasRemaining() && in.read(header, header.position()) > 0) {
+		}
+		header.flip();
+		return header.remaining() == HEADER_SIZE && header.getInt() == MAGIC && header.getInt() == VERSION
+				? header.getLong()
+				: -1L;
+	}
+
+	/**
+	 * Replay records of generation.
+	 *
+	 * @return file position after last valid record.
+	 */
+	private long replay(FileChannel in, long recordGeneration) throws IOException {
+		final DataInputStream data = new DataInputStream(
+				new BufferedInputStream(Channels.newInputStream(in.position(HEADER_SIZE)), 1 << 16));
+		final byte[] gen = longBytes(recordGeneration);
+		final long size = in.size();
+		long pos = HEADER_SIZE;
+		try {
+			for (;;) {
+				final int n = data.readInt();
+				final int sum = data.readInt();
+				if (n <= 0 || n > size - pos)
+					break;
+				final byte[] record = new byte[n];
+				data.readFully(record);
+				crc.reset();
+				crc.update(gen);
+				crc.update(record);
+				if ((int) crc.getValue() != sum)
+					break; // torn record or record of older generation
+				apply(record);
+				pos += 8 + n;
+			}
+		} catch (EOFException e) {
+			// end of file
+		}
+		return pos;
+	}
+
+	/**
+	 * Apply record: create object of the next number or update object.
+	 */
+	private void apply(byte[] record) throws IOException {
+		final ByteBuffer r = ByteBuffer.wrap(record);
+		final byte type = r.get();
+		if (type < 0 || type > ITEMS)
+			throw new IOException("invalid journal (record type " + type + ").");
+		final AppendLog<Object> kind = kinds[type == ITEMS ? ORDER : type];
+		final long seq = varLong(r);
+		if (seq < 0 || seq > kind.size() || (type == ITEMS && seq == kind.size()))
+			throw new IOException("invalid journal (number " + seq + ").");
+		final Object object = seq < kind.size() ? kind.get((int) seq) : null;
+		final Object applied;
+		switch (type) {
+		case CUSTOMER:
+			final long cid = varLong(r);
+			final String first = string(r), last = string(r);
+			final Customer c = object != null ? (Customer) object : factory.createCustomer();
+			c.setName(first, last);
+			if (cid > 0) {
+				c.setId(cid - 1);
+			}
+			c.deleteAllContacts();
+			for (long k = varLong(r); k > 0; k--) {
+				c.addContact(string(r));
+			}
+			applied = c;
+			break;
+		case ARTICLE:
+			final String aid = string(r), description = string(r);
+			final long unitPrice = varLong(r);
+			final int currency = (int) varLong(r), tax = (int) varLong(r);
+			final Article a = object != null ? (Article) object : factory.createArticle();
+			if (aid != null) {
+				a.setId(aid);
+			}
+			if (description != null && !description.isEmpty()) {
+				a.setDescription(description);
+			}
+			a.setUnitPrice(unitPrice);
+			if (currency > 0 && currency <= currencies.length) {
+				a.setCurrency(currencies[currency - 1]);
+			}
+			if (tax > 0 && tax <= taxes.length) {
+				a.setTax(taxes[tax - 1]);
+			}
+			applied = a;
+			break;
+		case ORDER:
+			final String oid = string(r);
+			final Customer customer = (Customer) element(kinds[CUSTOMER], varLong(r));
+			final long date = varLong(r);
+			final Order o = object != null ? (Order) object : factory.createOrder(customer);
+			o.setCreationDate((date >>> 1) ^ -(date & 1));
+			if (oid != null) {
+				o.setId(oid);
+			}
+			o.deleteAllItems();
+			addItems(o, r);
+			applied = o;
+			break;
+		default: // ITEMS
+			final Order order = (Order) object;
+			final long index = varLong(r);
+			if (index > order.itemsCount())
+				throw new IOException("invalid journal (item index " + index + ").");
+			while (order.itemsCount() > index) { // snapshot may hold later items
+				order.deleteItem(order.itemsCount() - 1);
+			}
+			addItems(order, r);
+			applied = order;
+		}
+		if (object == null) {
+			seqs.put(applied, kind.append(applied));
+		}
+	}
+
+	/**
+	 * Add {article, units} items up to the end of the record.
+	 */
+	private void addItems(Order o, ByteBuffer r) throws IOException {
+		while (r.hasRemaining()) {
+			final Article article = (Article) element(kinds[ARTICLE], varLong(r));
+			o.addItem(article, (int) varLong(r));
+		}
+	}
+
+	private static Object element(AppendLog<Object> kind, long i) throws IOException {
+		if (i < 0 || i >= kind.size())
+			throw new IOException("invalid journal (reference " + i + ").");
+		return kind.get((int) i);
+	}
+
+	private static long varLong(ByteBuffer r) throws IOException {
+		long v = 0;
+		for (int shift = 0; shift < 64; shift += 7) {
+			final int b = r.get();
+			v |= (long) (b & 0x7F) << shift;
+			if ((b & 0x80) == 0)
+				return v;
+		}
+		throw new IOException("invalid journal (varint).");
+	}
+
+	private static String string(ByteBuffer r) throws IOException {
+		final long n = varLong(r) - 1;
+		if (n < 0)
+			return null;
+		if (n > r.remaining())
+			throw new IOException("invalid journal (string).");
+		final String s = new String(r.array(), r.position(), (int) n, StandardCharsets.UTF_8);
+		r.position(r.position() + (int) n);
+		return s;
+	}
+
+	private static byte[] longBytes(long v) {
+		return ByteBuffer.allocate(8).putLong(v).array();
+	}
+}
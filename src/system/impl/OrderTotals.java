@@ -0,0 +1,171 @@
+package system.impl;
+
+import java.util.Collection;
+
+import datamodel.Article;
+import datamodel.Currency;
+import datamodel.Order;
+import datamodel.OrderItem;
+import datamodel.TAX;
+import system.Calculator;
+
+/**
+ * Accumulator of compounded values and VAT tax over orders with breakdowns by
+ * {@link TAX} class and {@link Currency}.
+ * <p>
+ * Totals are held in primitive arrays indexed by enum ordinals. Collections of
+ * orders are aggregated in parallel where each thread fills its own accumulator
+ * and accumulators are combined at the end
+ * ({@link #aggregate(Collection, VATEngine, CurrencyRates.Table)}). Small
+ * collections are aggregated sequentially. Totals over mixed currencies are
+ * converted from the per-currency totals, not per item.
+ * </p>
+ *
+ * @version <code style=
+ *          color:green>{@value application.package_info#Version}</code>
+ * @author <code style=
+ *         color:blue>{@value application.package_info#Author}</code>
+ */
+
+final class OrderTotals implements Calculator.Totals {
+
+	/**
+	 * Number of orders from which aggregation runs in parallel.
+	 */
+	static final int PARALLEL_THRESHOLD = 10_000;
+
+	private static final TAX[] taxes = TAX.values();
+	private static final Currency[] currencies = Currency.values();
+
+	private long value = 0L;
+	private long vat = 0L;
+	private int orders = 0;
+	private final long[] vatByTax = new long[taxes.length];
+	private final long[] valueByTax = new long[taxes.length];
+	private final long[] valueByCurrency = new long[currencies.length];
+	private final long[] vatByCurrency = new long[currencies.length];
+	private CurrencyRates.Table rates = null; // rates of converted totals
+
+	/**
+	 * Aggregate totals over orders, in parallel for large collections.
+	 *
+	 * @param orders    orders to aggregate, null elements are ignored.
+	 * @param vatEngine calculates VAT tax included in item values.
+	 * @param rates     conversion rates of converted totals.
+	 * @return aggregated totals.
+	 */
+	static OrderTotals aggregate(Collection<Order> orders, VATEngine vatEngine, CurrencyRates.Table rates) {
+		final OrderTotals totals = orders == null ? new OrderTotals()
+				: (orders.size() < PARALLEL_THRESHOLD ? orders.stream() : orders.parallelStream()).collect(
+						OrderTotals::new, (t, order) -> t.add(order, vatEngine), OrderTotals::combine);
+		totals.rates = rates;
+		return totals;
+	}
+
+	/**
+	 * Add items of order to totals.
+	 *
+	 * @param order       order to add, null is ignored.
+	 * @param vatEngine calculates VAT tax included in item values.
+	 */
+	void add(Order order, VATEngine vatEngine) {
+		if (order == null)
+			return;
+		orders++;
+		for (OrderItem item : order.getItemsSnapshot()) {
+			final Article article = item.getArticle();
+			final long gross = article.getUnitPrice() * item.getUnitsOrdered();
+			final TAX tax = article.getTax();
+			final long itemVAT = vatEngine.includedVAT(gross, tax);
+			value += gross;
+			vat += itemVAT;
+			if (tax != null) {
+				valueByTax[tax.ordinal()] += gross;
+				vatByTax[tax.ordinal()] += itemVAT;
+			}
+			final Currency currency = article.getCurrency();
+			if (currency != null) {
+				valueByCurrency[currency.ordinal()] += gross;
+				vatByCurrency[currency.ordinal()] += itemVAT;
+			}
+		}
+	}
+
+	/**
+	 * Combine other totals into these totals.
+	 *
+	 * @param other totals to add.
+	 */
+	void combine(OrderTotals other) {
+		value += other.value;
+		vat += other.vat;
+		orders += other.orders;
+		for (int i = 0; i < vatByTax.length; i++) {
+			valueByTax[i] += other.valueByTax[i];
+			vatByTax[i] += other.vatByTax[i];
+		}
+		for (int i = 0; i < valueByCurrency.length; i++) {
+			valueByCurrency[i] += other.valueByCurrency[i];
+			vatByCurrency[i] += other.vatByCurrency[i];
+		}
+	}
+
+	@Override
+	public int getOrdersCount() {
+		return orders;
+	}
+
+	@Override
+	public long getValue() {
+		return value;
+	}
+
+	@Override
+	public long getVAT() {
+		return vat;
+	}
+
+	@Override
+	public long getValue(TAX tax) {
+		return tax != null ? valueByTax[tax.ordinal()] : 0L;
+	}
+
+	@Override
+	public long getVAT(TAX tax) {
+		return tax != null ? vatByTax[tax.ordinal()] : 0L;
+	}
+
+	@Override
+	public long getValue(Currency currency) {
+		return currency != null ? valueByCurrency[currency.ordinal()] : 0L;
+	}
+
+	@Override
+	public long getVAT(Currency currency) {
+		return currency != null ? vatByCurrency[currency.ordinal()] : 0L;
+	}
+
+	@Override
+	public long getConvertedValue(Currency currency) {
+		return convert(value, valueByCurrency, currency);
+	}
+
+	@Override
+	public long getConvertedVAT(Currency currency) {
+		return convert(vat, vatByCurrency, currency);
+	}
+
+	/**
+	 * Convert per-currency totals into currency, the part of the total without
+	 * currency is added unconverted.
+	 */
+	private long convert(long total, long[] byCurrency, Currency currency) {
+		long converted = total;
+		for (int i = 0; i < byCurrency.length; i++) {
+			if (byCurrency[i] != 0) {
+				converted += rates.convert(byCurrency[i], currencies[i], currency) - byCurrency[i];
+			}
+		}
+		return converted;
+	}
+}
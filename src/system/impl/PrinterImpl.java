@@ -1,14 +1,14 @@
 package system.impl;
 
-import java.util.ArrayList;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Collection;
-import java.util.Iterator;
 import java.util.function.Consumer;
 import java.util.function.Function;
-import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 import datamodel.Article;
+import datamodel.Currency;
 import datamodel.Customer;
 import datamodel.Order;
 import datamodel.OrderItem;
@@ -88,6 +88,23 @@ class PrinterImpl implements Printer {
 		return new TablePrinterImpl(sb, builder);
 	}
 
+	/**
+	 * Factory method to create streaming TablePrinter instances that write rows to
+	 * an output destination.
+	 * 
+	 * @param out        output destination.
+	 * @param bufferSize number of buffered characters that triggers a write to
+	 *                   {@code out}.
+	 * @param builder    initialize table at creation with columns, widths and
+	 *                   alignment.
+	 * @return TablePrinter instance.
+	 */
+	@Override
+	public TablePrinter createTablePrinter(final Appendable out, final int bufferSize,
+			final Consumer<TablePrinter.Builder> builder) {
+		return new TablePrinterImpl(out, bufferSize, builder);
+	}
+
 	/**
 	 * Print attributes of one Customer object into StringBuffer as column-separated
 	 * line.
@@ -104,16 +121,42 @@ class PrinterImpl implements Printer {
 	 */
 	@Override
 	public StringBuffer printCustomer(final StringBuffer sb, final Customer c) {
+		return c == null ? sb : append(sb, renderCustomer(new StringBuilder(), c));
+	}
+
+	/**
+	 * Print attributes of one Customer object into an Appendable as
+	 * column-separated line.
+	 * 
+	 * @param <A> type of output destination.
+	 * @param out output destination, e.g. a StringBuilder or a Writer, not null.
+	 * @param c   Customer object.
+	 * @return output destination that contains formatted result (same out).
+	 * @throws IllegalArgumentException if out is null.
+	 * @throws UncheckedIOException     if appending to out fails.
+	 */
+	@Override
+	public <A extends Appendable> A printCustomer(final A out, final Customer c) {
+		return c == null ? out : render(out, sb -> renderCustomer(sb, c));
+	}
+
+	/**
+	 * Render attributes of one Customer object into StringBuilder, null is
+	 * ignored.
+	 */
+	private StringBuilder renderCustomer(final StringBuilder sb, final Customer c) {
 		if (c == null)
 			return sb;
 		//
-		final StringBuffer contacts = new StringBuffer();
-		IntStream.range(0, c.contactsCount())
-				.forEach(i -> contacts.append(i == 0 ? "" : ", ").append(c.getContacts()[i]));
+		final StringBuilder contacts = new StringBuilder();
+		final String[] cs = c.getContacts();
+		for (int i = 0; i < cs.length; i++) {
+			contacts.append(i == 0 ? "" : ", ").append(cs[i]);
+		}
 		//
 		int nameStyle = 0;
-		return (sb == null ? new StringBuffer() : sb).append(String.format("| %6d ", c.getId()))
-				.append(String.format("| %-31s", formatter.fmtName(c.getFirstName(), c.getLastName(), nameStyle)))
+		return sb.append(String.format("| %6d ", c.getId()))
+				.append(String.format("| %-31s", formatter.fmtName(c, nameStyle)))
 				.append(String.format("| %-44s ", contacts)).append("|\n");
 	}
 
@@ -135,17 +178,31 @@ class PrinterImpl implements Printer {
 	 */
 	@Override
 	public StringBuffer printCustomers(final StringBuffer sb, final Collection<Customer> customers) {
-		if (customers == null)
-			return sb;
-		//
-		final StringBuffer sb_ = sb == null ? new StringBuffer() : sb;
-//		var cit = customers.iterator();
-//		while(cit.hasNext()) {		// iterate through Customer collection
-//			Customer c = cit.next();
-//			printCustomer(sb, c);		// format each Customer object as line into StringBuffer
-//		}
-//		return sb;
-		return process(sb_, customers, s -> s, c -> printCustomer(sb_, c)); // calling generic print method
+		return customers == null ? sb : append(sb, renderCustomers(new StringBuilder(), customers));
+	}
+
+	/**
+	 * Print collection of Customer objects into an Appendable as lines with
+	 * Customer attributes.
+	 * 
+	 * @param <A>       type of output destination.
+	 * @param out       output destination, e.g. a StringBuilder or a Writer, not
+	 *                  null.
+	 * @param customers collection of Customers (null argument is ignored).
+	 * @return output destination that contains formatted result (same out).
+	 * @throws IllegalArgumentException if out is null.
+	 * @throws UncheckedIOException     if appending to out fails.
+	 */
+	@Override
+	public <A extends Appendable> A printCustomers(final A out, final Collection<Customer> customers) {
+		return customers == null ? out : render(out, sb -> renderCustomers(sb, customers));
+	}
+
+	/**
+	 * Render collection of Customer objects into StringBuilder.
+	 */
+	private StringBuilder renderCustomers(final StringBuilder sb, final Collection<Customer> customers) {
+		return process(sb, customers, s -> s, c -> renderCustomer(sb, c)); // calling generic print method
 	}
 
 	/**
@@ -164,10 +221,34 @@ class PrinterImpl implements Printer {
 	 */
 	@Override
 	public StringBuffer printArticle(final StringBuffer sb, final Article a) {
+		return a == null ? sb : append(sb, renderArticle(new StringBuilder(), a));
+	}
+
+	/**
+	 * Print attributes of one Article object into an Appendable as
+	 * column-separated line.
+	 * 
+	 * @param <A> type of output destination.
+	 * @param out output destination, e.g. a StringBuilder or a Writer, not null.
+	 * @param a   Article object.
+	 * @return output destination that contains formatted result (same out).
+	 * @throws IllegalArgumentException if out is null.
+	 * @throws UncheckedIOException     if appending to out fails.
+	 */
+	@Override
+	public <A extends Appendable> A printArticle(final A out, final Article a) {
+		return a == null ? out : render(out, sb -> renderArticle(sb, a));
+	}
+
+	/**
+	 * Render attributes of one Article object into StringBuilder, null is
+	 * ignored.
+	 */
+	private StringBuilder renderArticle(final StringBuilder sb, final Article a) {
 		if (a == null)
 			return sb;
 		//
-		return (sb == null ? new StringBuffer() : sb).append(String.format("| %10s ", a.getId()))
+		return sb.append(String.format("| %10s ", a.getId()))
 				.append(String.format("| %-27s", a.getDescription())).append(String.format("| %6d ", a.getUnitPrice()))
 				.append("\u20ac") // Unicode for Euro
 				.append(String.format("| %4s MwSt", a.getTax() == TAX.GER_VAT_REDUCED ? "7%" : "19%")).append("|\n");
@@ -191,11 +272,31 @@ class PrinterImpl implements Printer {
 	 */
 	@Override
 	public StringBuffer printArticles(final StringBuffer sb, final Collection<Article> articles) {
-		if (articles == null)
-			return sb;
-		//
-		final StringBuffer sb_ = sb == null ? new StringBuffer() : sb;
-		return process(sb_, articles, a -> printArticle(sb_, a));
+		return articles == null ? sb : append(sb, renderArticles(new StringBuilder(), articles));
+	}
+
+	/**
+	 * Print collection of Article objects into an Appendable as lines with
+	 * Article attributes.
+	 * 
+	 * @param <A>      type of output destination.
+	 * @param out      output destination, e.g. a StringBuilder or a Writer, not
+	 *                 null.
+	 * @param articles collection of Articles (null argument is ignored).
+	 * @return output destination that contains formatted result (same out).
+	 * @throws IllegalArgumentException if out is null.
+	 * @throws UncheckedIOException     if appending to out fails.
+	 */
+	@Override
+	public <A extends Appendable> A printArticles(final A out, final Collection<Article> articles) {
+		return articles == null ? out : render(out, sb -> renderArticles(sb, articles));
+	}
+
+	/**
+	 * Render collection of Article objects into StringBuilder.
+	 */
+	private StringBuilder renderArticles(final StringBuilder sb, final Collection<Article> articles) {
+		return process(sb, articles, a -> renderArticle(sb, a));
 	}
 
 	/**
@@ -214,13 +315,36 @@ class PrinterImpl implements Printer {
 	 */
 	@Override
 	public StringBuffer printOrder(final StringBuffer sb, final Order order) {
+		return order == null ? sb : append(sb, renderOrder(new StringBuilder(), order));
+	}
+
+	/**
+	 * Print attributes of one Order object into an Appendable as
+	 * column-separated line.
+	 * 
+	 * @param <A>   type of output destination.
+	 * @param out   output destination, e.g. a StringBuilder or a Writer, not null.
+	 * @param order Order object.
+	 * @return output destination that contains formatted result (same out).
+	 * @throws IllegalArgumentException if out is null.
+	 * @throws UncheckedIOException     if appending to out fails.
+	 */
+	@Override
+	public <A extends Appendable> A printOrder(final A out, final Order order) {
+		return order == null ? out : render(out, sb -> renderOrder(sb, order));
+	}
+
+	/**
+	 * Render attributes of one Order object into StringBuilder, null is ignored.
+	 */
+	private StringBuilder renderOrder(final StringBuilder sb, final Order order) {
 		if (order == null)
 			return sb;
 		//
 		final String creationDate = formatter.fmtDate(order.getCreationDate(), 0, "");
 		final Customer c = order.getCustomer();
-		return (sb == null ? new StringBuffer() : sb).append(String.format("| %10s ", order.getId()))
-				.append(String.format("| %-27s", formatter.fmtName(c.getFirstName(), c.getLastName(), 0)))
+		return sb.append(String.format("| %10s ", order.getId()))
+				.append(String.format("| %-27s", formatter.fmtName(c, 0)))
 				.append(String.format("| %1d items ", order.itemsCount()))
 				.append(String.format("| created: %s ", creationDate)).append("|\n");
 	}
@@ -244,11 +368,72 @@ class PrinterImpl implements Printer {
 	 */
 	@Override
 	public StringBuffer printOrders(final StringBuffer sb, final Collection<Order> orders) {
-		if (orders == null)
-			return sb;
-		//
-		final StringBuffer sb_ = sb == null ? new StringBuffer() : sb;
-		return process(sb_, orders, a -> printOrder(sb_, a));
+		return orders == null ? sb : append(sb, renderOrders(new StringBuilder(), orders));
+	}
+
+	/**
+	 * Print collection of Order objects into an Appendable as lines with Order
+	 * attributes.
+	 * 
+	 * @param <A>    type of output destination.
+	 * @param out    output destination, e.g. a StringBuilder or a Writer, not null.
+	 * @param orders collection of Orders (null argument is ignored).
+	 * @return output destination that contains formatted result (same out).
+	 * @throws IllegalArgumentException if out is null.
+	 * @throws UncheckedIOException     if appending to out fails.
+	 */
+	@Override
+	public <A extends Appendable> A printOrders(final A out, final Collection<Order> orders) {
+		return orders == null ? out : render(out, sb -> renderOrders(sb, orders));
+	}
+
+	/**
+	 * Render collection of Order objects into StringBuilder.
+	 */
+	private StringBuilder renderOrders(final StringBuilder sb, final Collection<Order> orders) {
+		return process(sb, orders, a -> renderOrder(sb, a));
+	}
+
+	/**
+	 * Append content rendered without synchronization to a StringBuffer with a
+	 * single (synchronized) append.
+	 * 
+	 * @param sb       StringBuffer to append to, a new StringBuffer is created
+	 *                 when sb is null.
+	 * @param rendered rendered content.
+	 * @return StringBuffer with appended content (same sb).
+	 */
+	private static StringBuffer append(final StringBuffer sb, final StringBuilder rendered) {
+		return (sb == null ? new StringBuffer(rendered.length()) : sb).append(rendered);
+	}
+
+	/**
+	 * Render content without synchronization directly into a StringBuilder or
+	 * into a temporary StringBuilder that is appended to other destinations with
+	 * a single append.
+	 * 
+	 * @param <A>    type of output destination.
+	 * @param out    output destination, not null.
+	 * @param render renders content into a StringBuilder.
+	 * @return output destination with appended content (same out).
+	 * @throws IllegalArgumentException if out is null.
+	 * @throws UncheckedIOException     if appending to out fails.
+	 */
+	private static <A extends Appendable> A render(final A out, final Consumer<StringBuilder> render) {
+		if (out == null)
+			throw new IllegalArgumentException("out is null.");
+		if (out instanceof StringBuilder) {
+			render.accept((StringBuilder) out);
+			return out;
+		}
+		final StringBuilder rendered = new StringBuilder();
+		render.accept(rendered);
+		try {
+			out.append(rendered);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return out;
 	}
 
 	/**
@@ -267,6 +452,9 @@ class PrinterImpl implements Printer {
 	 * +----------+---------------------------------------------+--------------------+
 	 * </pre>
 	 * 
+	 * Item prices are printed in the currency of the article, order totals are
+	 * converted into EUR (see {@link Calculator#calculateValueAndTax(Order)}).
+	 * 
 	 * @param orderTable to print order into.
 	 * @param order      order printed into {@code orderTable}, (null argument is
 	 *                   ignored).
@@ -280,50 +468,33 @@ class PrinterImpl implements Printer {
 			String name = order.getCustomer().getFirstName();
 			orderTable.row(id, name + "'s Bestellung: ");
 			//
-			ArrayList<Long> vatTotalList = new ArrayList<Long>();
-			ArrayList<Long> priceTotalList = new ArrayList<Long>();
-
-			Iterator<OrderItem> it = order.getItems().iterator();
-			int itSize = 0;
-			while (it.hasNext()) {
-				itSize++;
-				it.next();
-			}
-
-			int i = 1;
-			for (OrderItem orderItem : order.getItems()) {
-				Article articles = orderItem.getArticle();
-				int amount = orderItem.getUnitsOrdered();
-
-				Long price = articles.getUnitPrice() * amount;
-				priceTotalList.add(price);
-				Long vat = calculator.calculateIncludedVAT(price, articles.getTax());
-				vatTotalList.add(vat);
-
-				String article = String.format(" - %d %s", amount, articles.getDescription());
+			// single pass over items, totals {price, vat} in EUR are printed with
+			// the last item
+			final OrderItem[] items = order.getItemsSnapshot();
+			final int count = items.length;
+			final long[] totals = calculator.calculateValueAndTax(order);
+			orderTable.rows(count, (i, cells) -> {
+				final OrderItem orderItem = items[i];
+				final Article article = orderItem.getArticle();
+				final int amount = orderItem.getUnitsOrdered();
+				final long price = article.getUnitPrice() * amount;
+				final long vat = calculator.calculateIncludedVAT(price, article.getTax());
+				//
+				final StringBuilder description = cells.cell(1).append(" - ").append(amount).append(' ')
+						.append(article.getDescription());
 				if (amount > 1) {
-					article = String.format(" - %d %s, %dx %s", amount, articles.getDescription(), amount,
-							formatter.fmtPrice(articles.getUnitPrice()));
+					formatter.fmtPrice(description.append(", ").append(amount).append("x "), article.getUnitPrice(), 0);
 				}
-				String itemVat = formatter.fmtPrice(vat);
-				String reducedVAT = "";
-				if (articles.getTax() == TAX.GER_VAT_REDUCED) {
-					reducedVAT = "*";
+				formatter.fmtPrice(cells.cell(2), vat, 0);
+				if (article.getTax() == TAX.GER_VAT_REDUCED) {
+					cells.cell(3).append('*');
 				}
-				String itemPrice = formatter.fmtPrice(price, 1);
-
-				Long priceTotal = priceTotalList.stream().mapToLong(l -> l).sum();
-				String totalPrice = formatter.fmtPrice(priceTotal, 1);
-
-				Long vatTotal = vatTotalList.stream().mapToLong(l -> l).sum();
-				String totalVat = formatter.fmtPrice(vatTotal, 1);
-
-				if (i++ == itSize) {
-					orderTable.row("", article, itemVat, reducedVAT, itemPrice, totalVat, totalPrice);
-				} else {
-					orderTable.row("", article, itemVat, reducedVAT, itemPrice, "", "");
+				fmtPrice(cells.cell(4), price, article.getCurrency());
+				if (i == count - 1) {
+					formatter.fmtPrice(cells.cell(5), totals[1], 1);
+					formatter.fmtPrice(cells.cell(6), totals[0], 1);
 				}
-			}
+			});
 		}
 		return orderTable;
 	}
@@ -350,6 +521,9 @@ class PrinterImpl implements Printer {
 	 *                                                          +====================+
 	 * </pre>
 	 * 
+	 * Order totals are converted into EUR per order, the grand total is the sum
+	 * of the printed order totals.
+	 * 
 	 * @param orderTable to print orders into.
 	 * @param orders     collection of orders printed into {@code orderTable}, (null
 	 *                   argument is ignored).
@@ -357,30 +531,82 @@ class PrinterImpl implements Printer {
 	 */
 	@Override
 	public TablePrinter printOrders(final TablePrinter orderTable, final Collection<Order> orders) {
-		long[] totals = { // tuple with compounded price and VAT tax values over all orders.
-				0L, // compounded order value stored in first element
-				0L // compounded order VAT tax stored in second element
-		};
-		//
-		for (Order o : orders) {
-//			printOrder(orderTable, o).line();
-			long[] real = calculator.calculateValueAndTax(o);
-			totals[0] += real[0];
-			totals[1] += real[1];
+		// decorate: calculate value of each order once, used as sort key
+		final Order[] ordersArr = orders.toArray(new Order[orders.size()]);
+		final long[] values = new long[ordersArr.length];
+		long totalValue = 0L, totalTax = 0L;
+		for (int i = 0; i < ordersArr.length; i++) {
+			final long[] valueAndTax = calculator.calculateValueAndTax(ordersArr[i]);
+			values[i] = valueAndTax[0];
+			totalValue += valueAndTax[0];
+			totalTax += valueAndTax[1];
 		}
-
 		//
-		String totalPrice = formatter.fmtPrice(totals[0], 1);
-		String totalVAT = formatter.fmtPrice(totals[1], 1);
+		// grand totals are the sums of the printed order totals in EUR
+		String totalPrice = formatter.fmtPrice(totalValue, 1);
+		String totalVAT = formatter.fmtPrice(totalTax, 1);
 		//
-//		return orderTable.row("@ >        |   |", "", "", "", "", "Gesamt:", totalVAT, totalPrice)
-//				.line("@          +=+=+");
-		TablePrinter returnTable = process(orderTable, orders,
-				s -> s.sorted((a, b) -> Long.compare(calculator.calculateValueAndTax(b)[0],
-						calculator.calculateValueAndTax(a)[0])),
-				c -> printOrder(orderTable, c).line())
-				.row("@ >        |   |", "", "", "", "", "Gesamt:", totalVAT, totalPrice).line("@          +=+=+");
-
-		return returnTable;
+		// sort, undecorate: print orders by descending value
+		for (int i : sortDescending(values)) {
+			printOrder(orderTable, ordersArr[i]).line();
+		}
+		return orderTable.row("@ >        |   |", "", "", "", "", "Gesamt:", totalVAT, totalPrice).line("@          +=+=+");
+	}
+
+	/**
+	 * Format price with the symbol of its currency, currencies without symbol are
+	 * appended by name.
+	 * 
+	 * @param sb       StringBuilder to append formatted price to.
+	 * @param price    price in currency.
+	 * @param currency currency of price.
+	 * @return StringBuilder with appended price (same sb).
+	 */
+	private StringBuilder fmtPrice(final StringBuilder sb, final long price, final Currency currency) {
+		switch (currency) {
+		case EUR:
+			return formatter.fmtPrice(sb, price, 1);
+		case USD:
+			return formatter.fmtPrice(sb, price, 2);
+		case GBP:
+			return formatter.fmtPrice(sb, price, 3);
+		case YEN:
+			return formatter.fmtPrice(sb, price, 4);
+		default:
+			return formatter.fmtPrice(sb, price, 0).append(' ').append(currency.name());
+		}
+	}
+
+	/**
+	 * Stable sort of indices of {@code keys} by descending key value (merge sort
+	 * over primitive indices, equal keys keep their order).
+	 * 
+	 * @param keys sort keys.
+	 * @return indices of keys ordered by descending key value.
+	 */
+	static int[] sortDescending(final long[] keys) {
+		int n = keys.length;
+		int[] idx = new int[n];
+		int[] tmp = new int[n];
+		for (int i = 0; i < n; i++) {
+			idx[i] = i;
+		}
+		for (int width = 1; width < n; width <<= 1) {
+			for (int lo = 0; lo < n - width; lo += width << 1) {
+				int mid = lo + width, hi = Math.min(lo + (width << 1), n);
+				int i = lo, j = mid, k = lo;
+				while (i < mid && j < hi) {
+					tmp[k++] = keys[idx[j]] > keys[idx[i]] ? idx[j++] : idx[i++];
+				}
+				while (i < mid) {
+					tmp[k++] = idx[i++];
+				}
+				while (j < hi) {
+					tmp[k++] = idx[j++];
+				}
+				System.arraycopy(tmp, lo, idx, lo, hi - lo);
+			}
+		}
+		return idx;
 	}
 }
@@ -0,0 +1,56 @@
+package system.impl;
+
+import java.util.List;
+
+import datamodel.Article;
+import datamodel.Customer;
+import datamodel.Order;
+import system.DatamodelFactory;
+
+/**
+ * Immutable point-in-time snapshot of objects created by a
+ * {@link DatamodelFactory}.
+ * 
+ * @version <code style=
+ *          color:green>{@value application.package_info#Version}</code>
+ * @author <code style=
+ *         color:blue>{@value application.package_info#Author}</code>
+ */
+
+final class SnapshotImpl implements DatamodelFactory.Snapshot {
+
+	/**
+	 * Immutable lists of Customer, Article and Order objects.
+	 */
+	private final List<Customer> customers;
+	private final List<Article> articles;
+	private final List<Order> orders;
+
+	/**
+	 * Constructor with immutable lists.
+	 * 
+	 * @param customers immutable list of Customer objects.
+	 * @param articles  immutable list of Article objects.
+	 * @param orders    immutable list of Order objects.
+	 */
+	SnapshotImpl(List<Customer> customers, List<Article> articles, List<Order> orders) {
+		this.customers = customers;
+		this.articles = articles;
+		this.orders = orders;
+	}
+
+	@Override
+	public List<Customer> getCustomers() {
+		return customers;
+	}
+
+	@Override
+	public List<Article> getArticles() {
+		return articles;
+	}
+
+	@Override
+	public List<Order> getOrders() {
+		return orders;
+	}
+}
@@ -1,9 +1,13 @@
 package system.impl;
 
+import java.io.Flushable;
+import java.io.IOException;
 import java.io.PrintStream;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Consumer;
 
 import system.TablePrinter;
@@ -60,7 +64,15 @@ class TablePrinterImpl implements TablePrinter {
 	final List<Column> columns = new ArrayList<Column>();
 	final String rowSpec; // default row spec: "| | | |"
 	final String lineSpec; // default line spec: "+-+-+-+"
-	final StringBuffer sb;
+	final CharSequence content; // in-memory table content (StringBuffer, StringBuilder), null for streams
+	final Appendable out; // output destination of rendered rows
+	final StringBuilder buf = new StringBuilder(); // rendered rows not yet written to out
+	final int flushThreshold; // buffer size at which rows are written to out
+	final Layout rowLayout; // compiled default row spec
+	final Layout lineLayout; // compiled default line spec
+	final Map<String, Layout> layouts = new HashMap<String, Layout>(); // compiled specs
+	final static int MAX_LAYOUTS = 64; // number of cached compiled specs
+	final StringBuilder[] cells; // reusable cell buffer of bulk rows
 	final static char SPACE = 0x20;
 	final static char NUL = 0x00;
 	final static char L = 'L';
@@ -91,8 +103,65 @@ class TablePrinterImpl implements TablePrinter {
 		}
 	}
 
+	/**
+	 * Row or line spec compiled into an immutable layout of cells, one for each
+	 * rendered column, with border and fill characters, alignment and width.
+	 */
+	static final class Layout {
+		final Cell[] cells;
+
+		Layout(Cell[] cells) {
+			this.cells = cells;
+		}
+	}
+
+	/**
+	 * Compiled column of a layout.
+	 */
+	static final class Cell {
+		final boolean hasLb, hasRb; // left, right border is rendered
+		final char lb, rb; // left, right border character
+		final boolean hasText; // column text is rendered
+		final char fill; // fill character up to width
+		final int fillIndex; // spec index of fill character, -1 if fill is valid
+		final boolean right; // right-aligned column
+		final int width; // column width
+
+		Cell(Column col, String spec, int lens, int i, boolean isRowSpec) {
+			int j = i * 2;
+			this.hasLb = col.lb && j < lens;
+			this.lb = hasLb ? spec.charAt(j) : NUL;
+			this.hasText = ++j < lens || col.fill != SPACE;
+			char fc = isRowSpec && col.fill != SPACE ? col.fill : NUL;
+			boolean fromSpec = fc == NUL && i < lens;
+			this.fillIndex = fromSpec && j >= spec.length() ? j : -1; // index fails only when fill is needed
+			this.fill = fromSpec && fillIndex < 0 ? spec.charAt(j) : fc;
+			this.hasRb = col.rb && ++j < lens;
+			this.rb = hasRb ? spec.charAt(j) : NUL;
+			this.right = col.align == ALIGN.R;
+			this.width = col.width;
+		}
+	}
+
 	TablePrinterImpl(StringBuffer sb, Consumer<Builder> builder) {
-		this.sb = sb == null ? new StringBuffer() : sb;
+		this(sb == null ? new StringBuffer() : sb, 0, builder);
+	}
+
+	/**
+	 * Constructor of streaming table that writes rows to an output destination
+	 * after the internal buffer has reached {@code bufferSize} characters.
+	 * 
+	 * @param out        output destination of rows, e.g. a {@link java.io.Writer}.
+	 * @param bufferSize number of buffered characters that triggers a write to
+	 *                   {@code out}, 0 writes each row immediately.
+	 * @param builder    initialize table with columns, widths and alignment.
+	 */
+	TablePrinterImpl(Appendable out, int bufferSize, Consumer<Builder> builder) {
+		if (out == null)
+			throw new IllegalArgumentException("out null");
+		this.out = out;
+		this.content = out instanceof CharSequence ? (CharSequence) out : null;
+		this.flushThreshold = Math.max(0, bufferSize);
 		builder.accept(new Builder() {
 			@Override
 			public Builder column(String spec, int width) {
@@ -103,6 +172,12 @@ class TablePrinterImpl implements TablePrinter {
 		});
 		this.rowSpec = "| ".repeat(columns.size()) + "|";
 		this.lineSpec = "+-".repeat(columns.size()) + "+";
+		this.cells = new StringBuilder[columns.size()];
+		for (int i = 0; i < cells.length; i++) {
+			cells[i] = new StringBuilder();
+		}
+		this.rowLayout = compile(rowSpec, true);
+		this.lineLayout = compile(lineSpec, false);
 	}
 
 	/**
@@ -112,7 +187,7 @@ class TablePrinterImpl implements TablePrinter {
 	 */
 	@Override
 	public TablePrinter line() {
-		return render(lineSpec);
+		return render(lineLayout, null, 0);
 	}
 
 	/**
@@ -128,7 +203,7 @@ class TablePrinterImpl implements TablePrinter {
 	 */
 	@Override
 	public TablePrinter line(String spec) {
-		return render(spec);
+		return render(layout(spec), null, 0);
 	}
 
 	/**
@@ -142,8 +217,31 @@ class TablePrinterImpl implements TablePrinter {
 		int lena = args != null ? args.length : -1;
 		String arg0 = lena > 0 ? args[0] : "";
 		boolean hasSpec = arg0.startsWith("@"); // shift args[] << 1
-		String[] args2 = hasSpec ? Arrays.copyOfRange(args, 1, lena) : args;
-		return render(hasSpec ? arg0 : rowSpec, args2);
+		return hasSpec ? render(layout(arg0), args, 1) : render(rowLayout, args, 0);
+	}
+
+	/**
+	 * Insert {@code count} content lines with columns written by a RowSource into
+	 * a reusable cell buffer, rows are formatted by a spec.
+	 * 
+	 * @param spec   row spec with leading "@", null for the default row spec.
+	 * @param count  number of rows.
+	 * @param source writes columns of each row.
+	 * @return chainable self-reference.
+	 */
+	@Override
+	public TablePrinter rows(String spec, int count, RowSource source) {
+		final Layout layout = spec != null ? layout(spec) : rowLayout;
+		final StringBuilder[] cells = this.cells;
+		final Cells buffer = column -> cells[column];
+		for (int r = 0; r < count; r++) {
+			for (int i = 0; i < cells.length; i++) {
+				cells[i].setLength(0);
+			}
+			source.row(r, buffer);
+			render(layout, cells, 0);
+		}
+		return this;
 	}
 
 	/**
@@ -153,44 +251,120 @@ class TablePrinterImpl implements TablePrinter {
 	 */
 	@Override
 	public void print(PrintStream ps) {
-		ps.print(sb);
+		flush();
+		if (content != null) {
+			ps.print(content);
+		}
 	}
 
-	private TablePrinter render(String spec, String... args) {
+	/**
+	 * Write buffered rows to output destination and flush destination if it is
+	 * {@link Flushable}.
+	 * 
+	 * @return chainable self-reference.
+	 * @throws UncheckedIOException when output destination fails.
+	 */
+	@Override
+	public TablePrinter flush() {
+		write();
+		if (out instanceof Flushable) {
+			try {
+				((Flushable) out).flush();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+		return this;
+	}
+
+	/**
+	 * Write buffered rows to output destination.
+	 */
+	private void write() {
+		if (buf.length() > 0) {
+			try {
+				out.append(buf);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			buf.setLength(0);
+		}
+	}
+
+	/**
+	 * Return compiled layout of spec, specs are compiled once and cached.
+	 */
+	private Layout layout(String spec) {
+		Layout layout = layouts.get(spec);
+		if (layout == null) {
+			if (layouts.size() >= MAX_LAYOUTS) {
+				layouts.clear();
+			}
+			layout = compile(spec, false);
+			layouts.put(spec, layout);
+		}
+		return layout;
+	}
+
+	/**
+	 * Compile spec into layout, a leading "@" is removed from spec.
+	 */
+	private Layout compile(String spec, boolean isRowSpec) {
 		int lens = spec != null ? spec.length() : -1;
-		int lena = args != null ? args.length : -1;
-		spec = lens > 0 && spec.startsWith("@") ? spec.substring(1) : spec;
-		// IntStream.range(0, columns.size()).forEach( i -> {
-		for (int i = 0; i < columns.size() && i < lens / 2; i++) {
-			Column col = columns.get(i);
-			int j = i * 2;
-			if (col.lb && j < lens) {
-				sb.append(String.valueOf(spec.charAt(j)));
+		String sp = lens > 0 && spec.startsWith("@") ? spec.substring(1) : spec;
+		Cell[] cells = new Cell[Math.max(0, Math.min(columns.size(), lens / 2))];
+		for (int i = 0; i < cells.length; i++) {
+			cells[i] = new Cell(columns.get(i), sp, lens, i, isRowSpec);
+		}
+		return new Layout(cells);
+	}
+
+	/**
+	 * Render row with args[offset + i] for cell[i] of layout into buffer.
+	 */
+	private TablePrinter render(Layout layout, CharSequence[] args, int offset) {
+		final StringBuilder buf = this.buf;
+		final Cell[] cells = layout.cells;
+		final int lena = args != null ? args.length - offset : -1;
+		for (int i = 0; i < cells.length; i++) {
+			final Cell cell = cells[i];
+			if (cell.hasLb) {
+				buf.append(cell.lb);
 			}
-			if (++j < lens || col.fill != SPACE) {
-				String text = i < lena && args[i] != null ? args[i] : "";
-				int d = col.width - text.length();
+			if (cell.hasText) {
+				CharSequence text = i < lena && args[offset + i] != null ? args[offset + i] : "";
+				int len = text.length();
+				int d = cell.width - len;
 				if (d > 0) { // fill to width from left or right
-					char fc = spec == rowSpec && col.fill != SPACE ? col.fill : NUL;
-					fc = fc == NUL && i < lens ? spec.charAt(j) : fc;
-					String fill = String.valueOf(fc).repeat(d);
-					boolean left = col.align == ALIGN.L;
-					sb.append(left ? text : fill).append(left ? fill : text);
-				}
-				if (d < 0) { // cut to width
-					sb.append(col.align == ALIGN.R ? text.substring(-d)// cut from left
-							: text.substring(0, text.length() + d)); // cut from right
-				}
-				if (d == 0) {
-					sb.append(text);
+					if (cell.fillIndex >= 0)
+						throw new StringIndexOutOfBoundsException(cell.fillIndex);
+					if (!cell.right) {
+						buf.append(text);
+					}
+					for (int k = 0; k < d; k++) {
+						buf.append(cell.fill);
+					}
+					if (cell.right) {
+						buf.append(text);
+					}
+				} else if (d < 0) { // cut to width
+					if (cell.right) {
+						buf.append(text, -d, len); // cut from left
+					} else {
+						buf.append(text, 0, len + d); // cut from right
+					}
+				} else {
+					buf.append(text);
 				}
 			}
-			if (col.rb && ++j < lens) {
-				sb.append(String.valueOf(spec.charAt(j)));
+			if (cell.hasRb) {
+				buf.append(cell.rb);
 			}
 		}
-		;
-		sb.append("\n");
+		buf.append('\n');
+		if (buf.length() >= flushThreshold) {
+			write();
+		}
 		return this;
 	}
 }
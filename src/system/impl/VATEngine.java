@@ -0,0 +1,159 @@
+package system.impl;
+
+import java.math.RoundingMode;
+
+import datamodel.TAX;
+
+/**
+ * Exact integer engine to calculate VAT tax included in gross values.
+ * <p>
+ * Tax rates are held as basis points ({@code 1900} for 19%) in an array
+ * indexed by {@link TAX#ordinal()}. The net value
+ * {@code grossValue * 10000 / (10000 + rate)} is calculated with long
+ * arithmetic and rounded by a configurable {@link RoundingMode}, without
+ * {@code double} or boxed values and without overflow for all long values.
+ * With {@link RoundingMode#HALF_UP} results match
+ * {@code Math.round(grossValue / (1 + rate / 100.0))} as long as the double
+ * calculation is exact enough (values below {@code 10^11} cent).
+ * </p>
+ *
+ * @version <code style=
+ *          color:green>{@value application.package_info#Version}</code>
+ * @author <code style=
+ *         color:blue>{@value application.package_info#Author}</code>
+ */
+
+final class VATEngine {
+
+	/**
+	 * Basis points of 100%.
+	 */
+	static final long SCALE = 10_000L;
+
+	/**
+	 * Largest absolute gross value that can be scaled by {@link #SCALE} without
+	 * overflow.
+	 */
+	private static final long SAFE = Long.MAX_VALUE / SCALE;
+	private static final long HALF_SAFE = SAFE / 2;
+
+	/**
+	 * Tax rates in basis points indexed by TAX ordinal.
+	 */
+	private final long[] rates = new long[TAX.values().length];
+
+	/**
+	 * Rounding of net values.
+	 */
+	private final RoundingMode rounding;
+
+	/**
+	 * Constructor with rounding mode.
+	 *
+	 * @param rounding rounding of net values.
+	 * @throws IllegalArgumentException if rounding is null.
+	 */
+	VATEngine(RoundingMode rounding) {
+		if (rounding == null)
+			throw new IllegalArgumentException("rounding null.");
+		this.rounding = rounding;
+		rates[TAX.TAXFREE.ordinal()] = 0L; // tax free rate
+		rates[TAX.GER_VAT.ordinal()] = 1900L; // German VAT tax (MwSt) 19.0%
+		rates[TAX.GER_VAT_REDUCED.ordinal()] = 700L; // German reduced VAT tax (MwSt) 7.0%
+	}
+
+	/**
+	 * Return tax rate in basis points.
+	 *
+	 * @param tax applicable tax rate.
+	 * @return tax rate in basis points, 0 for null.
+	 */
+	long rate(TAX tax) {
+		return tax != null ? rates[tax.ordinal()] : 0L;
+	}
+
+	/**
+	 * Calculate VAT tax included in gross value.
+	 *
+	 * @param grossValue value that includes tax.
+	 * @param tax        applicable tax rate.
+	 * @return tax included in gross value.
+	 */
+	long includedVAT(long grossValue, TAX tax) {
+		return grossValue - net(grossValue, rate(tax));
+	}
+
+	/**
+	 * Calculate VAT tax included in a batch of gross values. Non-negative values
+	 * rounded half up take a branch-free path with one division per value.
+	 *
+	 * @param grossValues values that include tax.
+	 * @param taxCodes    applicable tax rates as {@link TAX#ordinal()}.
+	 * @param vat         output array for included tax.
+	 * @param n           number of values.
+	 * @throws ArrayIndexOutOfBoundsException for invalid tax codes.
+	 */
+	void includedVAT(long[] grossValues, byte[] taxCodes, long[] vat, int n) {
+		final long[] rates = this.rates;
+		final boolean halfUp = rounding == RoundingMode.HALF_UP;
+		for (int i = 0; i < n; i++) {
+			final long g = grossValues[i];
+			final long rate = rates[taxCodes[i]];
+			if (halfUp && g >= 0 && g <= HALF_SAFE) {
+				// net = floor(g * SCALE / d + 1/2)
+				final long d = SCALE + rate;
+				vat[i] = g - (g * (2 * SCALE) + d) / (2 * d);
+			} else {
+				vat[i] = g - net(g, rate);
+			}
+		}
+	}
+
+	/**
+	 * Calculate net value of gross value, rounded by rounding mode.
+	 *
+	 * @param grossValue value that includes tax.
+	 * @param rate       tax rate in basis points {@code >= 0}.
+	 * @return net value.
+	 * @throws ArithmeticException if rounding is {@link RoundingMode#UNNECESSARY}
+	 *                             and the net value is not integral.
+	 */
+	long net(long grossValue, long rate) {
+		if (rate == 0)
+			return grossValue;
+		final long d = SCALE + rate;
+		final long floor; // floor of exact net value
+		final long r; // exact net value is floor + r / d
+		if (grossValue <= SAFE && grossValue >= -SAFE) {
+			final long num = grossValue * SCALE;
+			floor = Math.floorDiv(num, d);
+			r = num - floor * d;
+		} else {
+			// split grossValue = q * d + rem to keep rem * SCALE within long range
+			final long num = Math.floorMod(grossValue, d) * SCALE;
+			floor = Math.floorDiv(grossValue, d) * SCALE + num / d;
+			r = num % d;
+		}
+		if (r == 0)
+			return floor;
+		final int half = Long.compare(r << 1, d);
+		switch (rounding) {
+		case FLOOR:
+			return floor;
+		case CEILING:
+			return floor + 1;
+		case DOWN:
+			return floor >= 0 ? floor : floor + 1;
+		case UP:
+			return floor >= 0 ? floor + 1 : floor;
+		case HALF_UP:
+			return half < 0 ? floor : half > 0 || floor >= 0 ? floor + 1 : floor;
+		case HALF_DOWN:
+			return half < 0 ? floor : half > 0 || floor < 0 ? floor + 1 : floor;
+		case HALF_EVEN:
+			return half < 0 ? floor : half > 0 || (floor & 1) != 0 ? floor + 1 : floor;
+		default:
+			throw new ArithmeticException("rounding necessary.");
+		}
+	}
+}